@@ -1,73 +1,156 @@
 package cn.navclub.nes4j.app.audio;
 
 import cn.navclub.nes4j.bin.apu.Player;
+import cn.navclub.nes4j.bin.apu.SampleBlock;
+import cn.navclub.nes4j.bin.apu.SampleFormat;
+import cn.navclub.nes4j.bin.config.SampleEncoding;
 import cn.navclub.nes4j.bin.logging.LoggerDelegate;
 import cn.navclub.nes4j.bin.logging.LoggerFactory;
+import lombok.Getter;
 
 import javax.sound.sampled.*;
 import java.util.concurrent.locks.LockSupport;
 
 
-@SuppressWarnings("all")
+/**
+ * Java sound player(signed 16 bit mono).
+ * <p>
+ * Emulation thread push samples into a lock-free {@link SampleRing}, a writer thread move them into
+ * {@link SourceDataLine}. Emulation speed and sound card clock never match exactly, so samples were resampled with
+ * a ratio nudged(at most {@link #MAX_ADJUST}) by ring fill level to keep ring fill around {@link #LATENCY_MS}
+ * (dynamic rate control), which avoid underrun and overrun without large buffer.
+ * </p>
+ */
 public class JavaXAudio implements Player {
-    private final byte[] sample;
-    private final byte[] buffer;
-    private final Line.Info info;
-    private final AudioFormat format;
-    private final SourceDataLine line;
-    private int ldx;
-    //Current fill index
-    private int index;
-    private final Thread thread;
-    private volatile boolean stop;
-    private final static int SAMPLE_SIZE = 55;
-
     private static final LoggerDelegate log = LoggerFactory.logger(JavaXAudio.class);
+    //Ring target fill and line buffer latency
+    private static final int LATENCY_MS = 20;
+    //Max resample ratio adjust(+-0.5%)
+    private static final double MAX_ADJUST = 0.005;
+    //Input samples between two rate adjust
+    private static final int CONTROL_INTERVAL = 256;
 
+    private SampleRing ring;
+    private SourceDataLine line;
+    private Thread thread;
+    //Ring fill level rate control keep
+    private int target;
+    private volatile boolean stop;
+    //Input samples per output sample
+    @Getter
+    private volatile double step;
+    //Output position between previous and current input sample
+    private double phase;
+    private int previous;
+    private int counter;
+    //Times writer found line and ring both drained
+    @Getter
+    private volatile int underruns;
+    //Samples dropped because ring was full
+    @Getter
+    private volatile int overruns;
 
-    public JavaXAudio(Integer sampleRate) throws LineUnavailableException {
-        this.sample = new byte[SAMPLE_SIZE];
-        this.buffer = new byte[SAMPLE_SIZE];
-        this.thread = new Thread(this::exec);
-        this.format = new AudioFormat(sampleRate, 8, 1, false, false);
-        this.info = new DataLine.Info(SourceDataLine.class, format);
-        this.line = (SourceDataLine) AudioSystem.getLine(info);
-
-        line.open(format);
-        line.start();
-
+    @Override
+    public SampleFormat open(SampleFormat preferred) {
+        var format = new SampleFormat(preferred.sampleRate(), SampleEncoding.PCM_S16, 1);
+        var audioFormat = new AudioFormat(format.sampleRate(), 16, 1, true, false);
+        var frames = format.sampleRate() * LATENCY_MS / 1000;
+        try {
+            this.line = (SourceDataLine) AudioSystem.getLine(new DataLine.Info(SourceDataLine.class, audioFormat));
+            this.line.open(audioFormat, frames * format.frameBytes());
+        } catch (LineUnavailableException e) {
+            throw new RuntimeException(e);
+        }
+        this.line.start();
+        this.target = frames;
+        this.ring = new SampleRing(frames * 4);
+        this.step = 1.0;
+        this.phase = 1.0;
+        this.thread = new Thread(this::exec, "JavaXAudio");
+        this.thread.setDaemon(true);
         this.thread.start();
+        return format;
     }
 
     @Override
-    public void output(byte sample) {
-        this.buffer[this.index] = sample;
-        this.index++;
-        if (this.index == SAMPLE_SIZE) {
-            this.index = 0;
-            System.arraycopy(this.buffer, 0, this.sample, 0, SAMPLE_SIZE);
-            LockSupport.unpark(this.thread);
+    public void output(SampleBlock block) {
+        var samples = block.getShorts();
+        for (int i = 0; i < block.getFrames(); i++) {
+            this.resample(samples[i]);
         }
-        this.index %= SAMPLE_SIZE;
     }
 
+    private void resample(short sample) {
+        //Linear interpolate output samples fall between previous and current input sample
+        while (this.phase <= 1.0) {
+            var value = this.previous + (sample - this.previous) * this.phase;
+            if (!this.ring.offer((short) Math.round(value))) {
+                this.overruns++;
+            }
+            this.phase += this.step;
+        }
+        this.phase -= 1.0;
+        this.previous = sample;
+        if (++this.counter == CONTROL_INTERVAL) {
+            this.counter = 0;
+            //Ring fuller than target produce less output sample,emptier produce more
+            var error = (double) (this.ring.size() - this.target) / this.target;
+            this.step = 1.0 + MAX_ADJUST * Math.max(-1.0, Math.min(1.0, error));
+        }
+    }
+
+    /**
+     * Ring fill level
+     *
+     * @return Sample count
+     */
+    public int fill() {
+        return this.ring.size();
+    }
 
     private void exec() {
-        while (!this.stop) {
-            LockSupport.park();
-            this.line.write(this.sample, 0, SAMPLE_SIZE);
+        var chunk = new short[Math.max(1, this.target / 4)];
+        var bytes = new byte[chunk.length * SampleEncoding.PCM_S16.bytes];
+        var starving = false;
+        try {
+            while (!this.stop) {
+                var count = this.ring.poll(chunk);
+                if (count == 0) {
+                    //Line played all written samples and nothing to write
+                    if (!starving && this.line.available() >= this.line.getBufferSize()) {
+                        starving = true;
+                        this.underruns++;
+                    }
+                    LockSupport.parkNanos(1_000_000);
+                    continue;
+                }
+                starving = false;
+                //Little endian
+                for (int i = 0; i < count; i++) {
+                    bytes[i * 2] = (byte) chunk[i];
+                    bytes[i * 2 + 1] = (byte) (chunk[i] >> 8);
+                }
+                this.line.write(bytes, 0, count * SampleEncoding.PCM_S16.bytes);
+            }
+        } catch (Exception e) {
+            log.fatal("Audio line write fail.", e);
+        } finally {
+            this.line.close();
         }
     }
 
     @Override
     public void stop() {
         this.stop = true;
-        LockSupport.unpark(this.thread);
-        this.line.close();
+        if (this.thread != null) {
+            LockSupport.unpark(this.thread);
+        }
     }
 
     @Override
     public void reset() {
-        this.index = 0;
+        this.phase = 1.0;
+        this.counter = 0;
+        this.previous = 0;
     }
 }
@@ -0,0 +1,81 @@
+package cn.navclub.nes4j.app.audio;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free single producer single consumer sample ring.
+ * <p>
+ * Producer(emulation thread) and consumer(audio line writer thread) each own one index and only publish it with
+ * release store, the other side read it with acquire load, so neither side ever block or allocate.
+ * </p>
+ *
+ * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
+ */
+public class SampleRing {
+    private final short[] buffer;
+    private final int mask;
+    //Next write position(written by producer only)
+    private final AtomicLong head;
+    //Next read position(written by consumer only)
+    private final AtomicLong tail;
+    //Producer local copy of head and last seen tail
+    private long writeIndex;
+    private long tailCache;
+
+    /**
+     * @param capacity Min capacity,rounded up to power of two
+     */
+    public SampleRing(int capacity) {
+        var size = Math.max(2, Integer.highestOneBit(capacity - 1) << 1);
+        this.buffer = new short[size];
+        this.mask = size - 1;
+        this.head = new AtomicLong();
+        this.tail = new AtomicLong();
+    }
+
+    /**
+     * Producer append a sample
+     *
+     * @return {@code false} when ring is full(sample dropped)
+     */
+    public boolean offer(short sample) {
+        if (this.writeIndex - this.tailCache == this.buffer.length) {
+            this.tailCache = this.tail.getAcquire();
+            if (this.writeIndex - this.tailCache == this.buffer.length) {
+                return false;
+            }
+        }
+        this.buffer[(int) (this.writeIndex & this.mask)] = sample;
+        this.head.setRelease(++this.writeIndex);
+        return true;
+    }
+
+    /**
+     * Consumer take samples
+     *
+     * @param dst Target array
+     * @return Sample count
+     */
+    public int poll(short[] dst) {
+        var read = this.tail.getPlain();
+        var count = (int) Math.min(this.head.getAcquire() - read, dst.length);
+        var offset = (int) (read & this.mask);
+        var first = Math.min(count, this.buffer.length - offset);
+        System.arraycopy(this.buffer, offset, dst, 0, first);
+        System.arraycopy(this.buffer, 0, dst, first, count - first);
+        this.tail.setRelease(read + count);
+        return count;
+    }
+
+    /**
+     * Samples in ring(snapshot,may be called from any thread)
+     */
+    public int size() {
+        var tail = this.tail.getAcquire();
+        return (int) (this.head.getAcquire() - tail);
+    }
+
+    public int capacity() {
+        return this.buffer.length;
+    }
+}
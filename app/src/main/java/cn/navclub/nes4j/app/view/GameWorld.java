@@ -2,7 +2,6 @@ package cn.navclub.nes4j.app.view;
 
 import cn.navclub.nes4j.app.assets.FXResource;
 import cn.navclub.nes4j.app.INes;
-import cn.navclub.nes4j.app.audio.JavaXAudio;
 import cn.navclub.nes4j.app.config.NESConfig;
 import cn.navclub.nes4j.app.service.TaskService;
 import cn.navclub.nes4j.app.dialog.DHandle;
@@ -15,9 +14,9 @@ import cn.navclub.nes4j.bin.config.AudioSampleRate;
 import cn.navclub.nes4j.bin.io.JoyPad;
 import cn.navclub.nes4j.bin.logging.LoggerDelegate;
 import cn.navclub.nes4j.bin.logging.LoggerFactory;
+import cn.navclub.nes4j.bin.ppu.ColorTable;
 import cn.navclub.nes4j.bin.ppu.Frame;
 import javafx.animation.AnimationTimer;
-import javafx.application.Platform;
 import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.scene.Scene;
@@ -34,7 +33,6 @@ import javafx.scene.shape.Circle;
 import javafx.stage.Stage;
 
 import java.io.File;
-import java.nio.IntBuffer;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingDeque;
 
@@ -54,12 +52,18 @@ public class GameWorld extends Stage {
     //Pixel scale level
     @SuppressWarnings("all")
     private final int scale;
-    private final IntBuffer intBuffer;
+    //Frame argb color
+    private final int[] argb;
+    //Scaled frame argb color
+    private final int[] buffer;
     private final GraphicsContext ctx;
     private final WritableImage image;
     private final BlockingQueue<GameEventWrap> eventQueue;
 
-    private NesConsole console;
+    private volatile NesConsole console;
+    //Latest game loop state which written by emulation thread
+    private volatile int fps;
+    private volatile boolean enableRender;
     private Debugger debugger;
     private final Circle[] joyBtns;
     private TaskService<Void> service;
@@ -74,7 +78,8 @@ public class GameWorld extends Stage {
         this.scale = scale;
         this.eventQueue = new LinkedBlockingDeque<>();
 
-        this.intBuffer = IntBuffer.allocate(this.scale * this.scale);
+        this.argb = new int[Frame.width * Frame.height];
+        this.buffer = new int[this.scale * this.scale * Frame.width * Frame.height];
         this.image = new WritableImage(this.scale * Frame.width, this.scale * Frame.height);
 
         this.ctx = canvas.getGraphicsContext2D();
@@ -100,6 +105,7 @@ public class GameWorld extends Stage {
                 var minute = span / 60 % 60;
                 var hour = span / 60 / 60;
                 timer.setText("%02d:%02d:%02d".formatted(hour, minute, second));
+                drawFrame();
             }
         };
         this.animationTimer.start();
@@ -124,7 +130,7 @@ public class GameWorld extends Stage {
                 GameWorld.this.console = NesConsole.Builder
                         .newBuilder()
                         .file(file)
-                        .player(JavaXAudio.class)
+                        .player("JavaXAudio")
                         .sampleRate(AudioSampleRate.HZ44100)
                         .gameLoopCallback(GameWorld.this::gameLoopCallback)
                         .build();
@@ -196,42 +202,55 @@ public class GameWorld extends Stage {
         new PPUViewer(this.console);
     }
 
-    private void gameLoopCallback(Integer fps, boolean enableRender, Frame frame, JoyPad joyPad, JoyPad joyPad1) {
+    private void gameLoopCallback(int fps, boolean enableRender, Frame frame, JoyPad joyPad, JoyPad joyPad1) {
+        this.fps = fps;
+        this.enableRender = enableRender;
+
+        //Poll keyword event
+        var event = eventQueue.poll();
+        if (event != null) {
+            joyPad.updateBtnStatus(event.btn(), event.event() == KeyEvent.KEY_PRESSED);
+        }
+    }
+
+    /**
+     * Draw newest complete frame, called by javafx pulse so a slow ui never block emulation thread.
+     */
+    private void drawFrame() {
+        if (this.console == null) {
+            return;
+        }
+        var frame = this.console.getExchange().acquire();
         //If render enable transport pixel to javafx image otherwise do nothing.
-        if (enableRender) {
+        if (frame != null && this.enableRender) {
             var w = Frame.width;
             var h = Frame.height;
-            var writer = image.getPixelWriter();
-            var format = PixelFormat.getIntArgbInstance();
+            var stride = w * this.scale;
+            frame.toARGB(ColorTable.DEFAULT, this.argb);
             for (int y = 0; y < h; y++) {
+                var row = y * this.scale * stride;
                 for (int x = 0; x < w; x++) {
-                    var pixel = frame.getPixel(y * w + x);
-                    for (int k = 0; k < this.scale * this.scale; k++) {
-                        intBuffer.put(k, pixel);
+                    var pixel = this.argb[y * w + x];
+                    for (int k = 0; k < this.scale; k++) {
+                        this.buffer[row + x * this.scale + k] = pixel;
                     }
-                    writer.setPixels(x * this.scale, y * this.scale, this.scale, this.scale, format, this.intBuffer, 1);
+                }
+                //Repeat scaled row
+                for (int k = 1; k < this.scale; k++) {
+                    System.arraycopy(this.buffer, row, this.buffer, row + k * stride, stride);
                 }
             }
+            this.image.getPixelWriter().setPixels(0, 0, stride, h * this.scale, PixelFormat.getIntArgbInstance(), this.buffer, 0, stride);
+            this.ctx.drawImage(image, 0, 0);
         }
-
-        //Poll keyword event
-        var event = eventQueue.poll();
-        if (event != null) {
-            joyPad.updateBtnStatus(event.btn(), event.event() == KeyEvent.KEY_PRESSED);
+        var fps = this.fps;
+        var span = this.console.TVFps() - fps;
+        var color = Color.GREEN;
+        if (Math.abs(span) > 3) {
+            color = Color.RED;
         }
-
-        Platform.runLater(() -> {
-            if (enableRender) {
-                this.ctx.drawImage(image, 0, 0);
-            }
-            var span = this.console.TVFps() - fps;
-            var color = Color.GREEN;
-            if (Math.abs(span) > 3) {
-                color = Color.RED;
-            }
-            this.fbl.setTextFill(color);
-            this.fbl.setText(String.format("fps:%02d", fps));
-        });
+        this.fbl.setTextFill(color);
+        this.fbl.setText(String.format("fps:%02d", fps));
     }
 
     private void keyEventHandler(KeyEvent event) {
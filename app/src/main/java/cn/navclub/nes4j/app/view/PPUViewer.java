@@ -1,6 +1,7 @@
 package cn.navclub.nes4j.app.view;
 
 import cn.navclub.nes4j.bin.NesConsole;
+import cn.navclub.nes4j.bin.ppu.TileCache;
 import cn.navclub.nes4j.bin.util.BinUtil;
 import javafx.scene.Scene;
 import javafx.scene.canvas.Canvas;
@@ -28,18 +29,18 @@ public class PPUViewer extends Stage {
         var writer = image.getPixelWriter();
         var pixelFormat = PixelFormat.getIntArgbInstance();
         var stride = 32;
+        var tiles = new TileCache(buffer);
+        var pixels = tiles.getPixels();
         for (int i = 0; i < 512; i++) {
             var offset = i * 16;
             var index = i % stride;
             var rowNum = i / stride;
             for (int j = 0; j < 8; j++) {
-                var l = buffer[offset + j];
-                var r = buffer[offset + 8 + j];
-                for (int k = 7; k >= 0; k--) {
+                var row = tiles.row(offset + j);
+                for (int k = 0; k < 8; k++) {
                     var y = rowNum * 8 + j;
-                    var x = index * 8 + (7 - k);
-                    var idx = ((l >> k) & 1) | ((r >> k & 1) << 1);
-                    writer.setPixels(x, y, 1, 1, pixelFormat, intBuf.put(0, colors[idx]), 256);
+                    var x = index * 8 + k;
+                    writer.setPixels(x, y, 1, 1, pixelFormat, intBuf.put(0, colors[pixels[row + k]]), 256);
                 }
             }
         }
@@ -64,6 +65,6 @@ public class PPUViewer extends Stage {
     }
 
     public PPUViewer(NesConsole console) {
-        this(console.getCartridge().getChrom(), DEF_FILL_COLOR);
+        this(console.getMapper().getChrom(), DEF_FILL_COLOR);
     }
 }
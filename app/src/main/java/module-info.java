@@ -1,3 +1,4 @@
+import cn.navclub.nes4j.app.audio.JavaXAudio;
 import cn.navclub.nes4j.bin.apu.Player;
 
 module cn.navclub.nes4j.app {
@@ -29,4 +30,6 @@ module cn.navclub.nes4j.app {
     opens cn.navclub.nes4j.app.assets;
 
     uses Player;
+
+    provides Player with JavaXAudio;
 }
\ No newline at end of file
@@ -0,0 +1,62 @@
+package cn.navclub.nes4j.app.audio;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
+ */
+class SampleRingTest {
+    @Test
+    void capacityRoundUp() {
+        assertEquals(8, new SampleRing(5).capacity());
+        assertEquals(8, new SampleRing(8).capacity());
+        assertEquals(2, new SampleRing(1).capacity());
+        assertEquals(2, new SampleRing(2).capacity());
+    }
+
+    @Test
+    void emptyAndFull() {
+        var ring = new SampleRing(8);
+        var dst = new short[16];
+        assertEquals(0, ring.poll(dst));
+        for (int i = 0; i < 8; i++) {
+            assertTrue(ring.offer((short) i));
+        }
+        assertEquals(8, ring.size());
+        //Full ring drop sample
+        assertFalse(ring.offer((short) 8));
+        assertEquals(8, ring.poll(dst));
+        for (int i = 0; i < 8; i++) {
+            assertEquals(i, dst[i]);
+        }
+        assertEquals(0, ring.size());
+        assertEquals(0, ring.poll(dst));
+    }
+
+    @Test
+    void wrapAround() {
+        var ring = new SampleRing(8);
+        var dst = new short[8];
+        var value = (short) 0;
+        var expect = (short) 0;
+        //Read and write position keep moving across buffer end
+        for (int round = 0; round < 100; round++) {
+            var n = 1 + round % 8;
+            for (int i = 0; i < n; i++) {
+                assertTrue(ring.offer(value++));
+            }
+            //Partial poll limited by destination length
+            var count = ring.poll(new short[n / 2]);
+            for (int i = 0; i < count; i++) {
+                expect++;
+            }
+            count = ring.poll(dst);
+            assertEquals(n - n / 2, count);
+            for (int i = 0; i < count; i++) {
+                assertEquals(expect++, dst[i]);
+            }
+        }
+    }
+}
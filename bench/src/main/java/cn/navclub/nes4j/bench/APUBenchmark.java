@@ -0,0 +1,62 @@
+package cn.navclub.nes4j.bench;
+
+import cn.navclub.nes4j.bin.NesConsole;
+import cn.navclub.nes4j.bin.TestRom;
+import cn.navclub.nes4j.bin.apu.APU;
+import cn.navclub.nes4j.bin.apu.NullPlayer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Apu cost per cpu cycle with pulse,triangle and noise channels playing, include band-limited synthesis
+ * ({@link NullPlayer} discard output samples). {@link APU#tick()} step every cycle, {@link APU#sync(long)} skip
+ * cycles between channel events in bulk.
+ *
+ * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class APUBenchmark {
+    private static final int CYCLES = 1000;
+
+    private APU apu;
+    //Master clock cycle which sync reached
+    private long clock;
+
+    @Setup
+    public void setup() throws Exception {
+        var console = NesConsole.Builder
+                .newBuilder()
+                .buffer(TestRom.frame())
+                .headless(true)
+                .player(NullPlayer.class)
+                .build();
+        //Let rom enable apu channels
+        console.runFrames(10);
+        //Inhibit frame counter irq,nobody handle interrupt when apu was driven alone
+        console.getBus().write(0x4017, (byte) 0x40);
+        console.sync();
+        this.apu = console.getApu();
+        this.apu.setClock(this.clock);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CYCLES)
+    public void tick() {
+        for (int i = 0; i < CYCLES; i++) {
+            this.apu.tick();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CYCLES)
+    public void sync() {
+        this.clock += CYCLES;
+        this.apu.sync(this.clock);
+    }
+}
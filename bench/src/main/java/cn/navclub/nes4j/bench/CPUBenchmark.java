@@ -0,0 +1,43 @@
+package cn.navclub.nes4j.bench;
+
+import cn.navclub.nes4j.bin.NesConsole;
+import cn.navclub.nes4j.bin.TestRom;
+import cn.navclub.nes4j.bin.core.CPU;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link CPU#next()} throughput on synthetic instruction mix(ppu and apu were not caught up).
+ *
+ * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CPUBenchmark {
+    private static final int INSTRUCTIONS = 1000;
+
+    @Param({"alu", "memory", "branch"})
+    private String mix;
+    private CPU cpu;
+
+    @Setup
+    public void setup() throws Exception {
+        var console = NesConsole.Builder.newBuilder().buffer(TestRom.load(this.mix)).headless(true).build();
+        //First frame run reset sequence
+        console.runFrames(1);
+        this.cpu = console.getCpu();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(INSTRUCTIONS)
+    public void next() {
+        for (int i = 0; i < INSTRUCTIONS; i++) {
+            this.cpu.next();
+        }
+    }
+}
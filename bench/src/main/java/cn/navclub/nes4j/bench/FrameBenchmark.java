@@ -0,0 +1,44 @@
+package cn.navclub.nes4j.bench;
+
+import cn.navclub.nes4j.bin.NesConsole;
+import cn.navclub.nes4j.bin.TestRom;
+import cn.navclub.nes4j.bin.config.RenderMode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Whole frame headless {@link NesConsole} throughput. Synthetic rom was used by default, run a real rom by
+ * {@code -p rom=/path/to/game.nes}. Allocation rate was reported by {@code -prof gc}.
+ *
+ * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FrameBenchmark {
+    @Param({"frame"})
+    private String rom;
+    @Param({"SCANLINE"})
+    private RenderMode mode;
+    private NesConsole console;
+
+    @Setup
+    public void setup() throws Exception {
+        this.console = NesConsole.Builder
+                .newBuilder()
+                .buffer(TestRom.load(this.rom))
+                .headless(true)
+                .renderMode(this.mode)
+                .build();
+        this.console.runFrames(10);
+    }
+
+    @Benchmark
+    public void frame() {
+        this.console.runFrames(1);
+    }
+}
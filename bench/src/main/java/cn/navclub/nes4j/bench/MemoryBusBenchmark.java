@@ -0,0 +1,75 @@
+package cn.navclub.nes4j.bench;
+
+import cn.navclub.nes4j.bin.NesConsole;
+import cn.navclub.nes4j.bin.TestRom;
+import cn.navclub.nes4j.bin.core.MemoryBus;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link MemoryBus} read/write over each cpu address region.
+ *
+ * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MemoryBusBenchmark {
+    private static final int ACCESSES = 256;
+
+    @Param({"RAM", "RAM_MIRROR", "PPU", "APU", "EXP", "SRAM", "PRG"})
+    private Region region;
+    private MemoryBus bus;
+    private int[] addresses;
+
+    public enum Region {
+        RAM(0x0000, 0x0800),
+        RAM_MIRROR(0x0800, 0x2000),
+        PPU(0x2000, 0x2008),
+        APU(0x4000, 0x4014),
+        EXP(0x4020, 0x6000),
+        SRAM(0x6000, 0x8000),
+        PRG(0x8000, 0x10000);
+
+        private final int start;
+        private final int end;
+
+        Region(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    @Setup
+    public void setup() throws Exception {
+        var console = NesConsole.Builder.newBuilder().buffer(TestRom.alu()).headless(true).build();
+        console.runFrames(1);
+        this.bus = console.getBus();
+        this.addresses = new int[ACCESSES];
+        var size = this.region.end - this.region.start;
+        for (int i = 0; i < ACCESSES; i++) {
+            this.addresses[i] = this.region.start + (i * 37) % size;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ACCESSES)
+    public void read(Blackhole blackhole) {
+        for (int address : this.addresses) {
+            blackhole.consume(this.bus.read(address));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ACCESSES)
+    public void write() {
+        for (int address : this.addresses) {
+            this.bus.write(address, (byte) address);
+        }
+    }
+}
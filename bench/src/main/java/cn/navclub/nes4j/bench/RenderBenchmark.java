@@ -0,0 +1,54 @@
+package cn.navclub.nes4j.bench;
+
+import cn.navclub.nes4j.bin.NesConsole;
+import cn.navclub.nes4j.bin.TestRom;
+import cn.navclub.nes4j.bin.config.RenderMode;
+import cn.navclub.nes4j.bin.ppu.PPU;
+import cn.navclub.nes4j.bin.ppu.Render;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Render#run(long)} cost per scanline(341 dots) with background and sprite rendering enabled,{@link #mode}
+ * select per dot or whole scanline render path.
+ *
+ * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RenderBenchmark {
+    private static final int DOTS = 341;
+
+    @Param({"DOT", "SCANLINE"})
+    private RenderMode mode;
+    private PPU ppu;
+    private Render render;
+
+    @Setup
+    public void setup() throws Exception {
+        var console = NesConsole.Builder
+                .newBuilder()
+                .buffer(TestRom.frame())
+                .headless(true)
+                .renderMode(this.mode)
+                .build();
+        //Let rom finish name table,palette setup and enable rendering
+        console.runFrames(10);
+        //Disable vblank nmi(keep rendering),nobody handle interrupt when render was driven alone
+        console.getBus().write(0x2000, (byte) 0x00);
+        this.ppu = console.getPpu();
+        this.render = this.ppu.getRender();
+    }
+
+    @Benchmark
+    public void scanline() {
+        //Odd frame skipped dot shift following scanlines off dot 0,run rest of that line to realign
+        var dot = this.ppu.position(0) & 0xffff;
+        this.render.run(DOTS - dot);
+    }
+}
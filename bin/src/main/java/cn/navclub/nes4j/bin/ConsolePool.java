@@ -0,0 +1,185 @@
+package cn.navclub.nes4j.bin;
+
+import lombok.Getter;
+
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cooperative multi console runtime.
+ * <p>
+ * Every {@link NesConsole} was driven by a frame sliced task on a shared fixed thread pool. A task run
+ * {@code slice} frames by {@link NesConsole#runFrames(int)} and then requeue itself to the tail of pool queue,
+ * so every console get fair share of cpu and hundreds of consoles need only as many threads as cpu cores.
+ * </p>
+ * <p>
+ * Pooled console should be headless(see {@link NesConsole.Builder#headless(boolean)}) and must not attach a
+ * {@link cn.navclub.nes4j.bin.debug.Debugger}, because a breakpoint park the worker thread.
+ * </p>
+ *
+ * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
+ */
+public class ConsolePool {
+    //Frames per task slice
+    private final int slice;
+    private final long startTime;
+    private final ExecutorService executor;
+    @Getter
+    private final List<Instance> instances;
+
+    public ConsolePool() {
+        this(Runtime.getRuntime().availableProcessors(), 1);
+    }
+
+    public ConsolePool(int threads, int slice) {
+        if (threads <= 0 || slice <= 0) {
+            throw new IllegalArgumentException("Thread count and frame slice must be positive.");
+        }
+        var counter = new AtomicInteger();
+        this.slice = slice;
+        this.startTime = System.nanoTime();
+        this.instances = new CopyOnWriteArrayList<>();
+        this.executor = Executors.newFixedThreadPool(threads, r -> {
+            var thread = new Thread(r, "nes4j-pool-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Schedule console run until it was stopped
+     *
+     * @param console Target console
+     * @return Console instance
+     */
+    public Instance submit(NesConsole console) {
+        return this.submit(console, 0);
+    }
+
+    /**
+     * Schedule console run target frames
+     *
+     * @param console Target console
+     * @param limit   Frame limit,less or equal zero mean no limit
+     * @return Console instance
+     */
+    public Instance submit(NesConsole console, long limit) {
+        var instance = new Instance(console, limit);
+        this.instances.add(instance);
+        this.executor.execute(instance);
+        return instance;
+    }
+
+    /**
+     * Total frames produced by all consoles
+     *
+     * @return Frame count
+     */
+    public long frames() {
+        var frames = 0L;
+        for (Instance instance : this.instances) {
+            frames += instance.frames;
+        }
+        return frames;
+    }
+
+    /**
+     * Pool throughput since pool created
+     *
+     * @return Frames per second
+     */
+    public double fps() {
+        var span = System.nanoTime() - this.startTime;
+        return span == 0 ? 0 : this.frames() * 1e9 / span;
+    }
+
+    /**
+     * Stop all consoles and release pool thread
+     */
+    public void shutdown() {
+        for (Instance instance : this.instances) {
+            instance.cancel();
+        }
+        this.executor.shutdown();
+    }
+
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return this.executor.awaitTermination(timeout, unit);
+    }
+
+    /**
+     * A pooled console with fairness and throughput metrics
+     */
+    public class Instance implements Runnable {
+        @Getter
+        private final NesConsole console;
+        private final long limit;
+        private final CompletableFuture<Instance> future;
+        //Produced frames
+        @Getter
+        private volatile long frames;
+        //Task slices which was executed
+        @Getter
+        private volatile long slices;
+        //Time spent on pool thread
+        @Getter
+        private volatile long busyNanos;
+
+        private Instance(NesConsole console, long limit) {
+            this.limit = limit;
+            this.console = console;
+            this.future = new CompletableFuture<>();
+        }
+
+        @Override
+        public void run() {
+            if (this.console.isStop() || (this.limit > 0 && this.frames >= this.limit)) {
+                this.future.complete(this);
+                return;
+            }
+            var n = this.limit > 0 ? (int) Math.min(slice, this.limit - this.frames) : slice;
+            var start = System.nanoTime();
+            var before = this.console.getFrames();
+            try {
+                this.console.runFrames(n);
+            } catch (Throwable t) {
+                this.future.completeExceptionally(t);
+                return;
+            }
+            this.busyNanos += System.nanoTime() - start;
+            this.frames += this.console.getFrames() - before;
+            this.slices++;
+            //Requeue to pool tail let other console run
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                this.future.complete(this);
+            }
+        }
+
+        /**
+         * Emulation speed of this console(only time spent on pool thread)
+         *
+         * @return Frames per second
+         */
+        public double speed() {
+            var busy = this.busyNanos;
+            return busy == 0 ? 0 : this.frames * 1e9 / busy;
+        }
+
+        /**
+         * Stop console, instance will be completed on next schedule
+         */
+        public void cancel() {
+            this.console.stop();
+        }
+
+        /**
+         * Future which completed when console stopped or frame limit reached
+         */
+        public CompletableFuture<Instance> future() {
+            return this.future;
+        }
+    }
+}
@@ -4,54 +4,108 @@ import cn.navclub.nes4j.bin.apu.APU;
 import cn.navclub.nes4j.bin.apu.Player;
 import cn.navclub.nes4j.bin.config.AudioSampleRate;
 import cn.navclub.nes4j.bin.config.NMapper;
+import cn.navclub.nes4j.bin.config.RenderMode;
 import cn.navclub.nes4j.bin.config.TV;
 import cn.navclub.nes4j.bin.core.*;
+import cn.navclub.nes4j.bin.debug.CPUTrace;
 import cn.navclub.nes4j.bin.debug.Debugger;
 import cn.navclub.nes4j.bin.config.CPUInterrupt;
+import cn.navclub.nes4j.bin.config.IRQSource;
 import cn.navclub.nes4j.bin.function.GameLoopCallback;
 import cn.navclub.nes4j.bin.io.Cartridge;
 import cn.navclub.nes4j.bin.io.JoyPad;
+import cn.navclub.nes4j.bin.io.Movie;
+import cn.navclub.nes4j.bin.io.Recorder;
 import cn.navclub.nes4j.bin.ppu.Frame;
+import cn.navclub.nes4j.bin.ppu.FrameExchange;
 import cn.navclub.nes4j.bin.ppu.PPU;
 import lombok.Getter;
 import lombok.Setter;
 
 import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
 import java.util.concurrent.*;
 import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+import static cn.navclub.nes4j.bin.util.BinUtil.getBool;
+import static cn.navclub.nes4j.bin.util.BinUtil.putBool;
 
 @Getter
 public class NesConsole {
+    //Save state magic number("NES4")
+    private static final int STATE_MAGIC = 0x4e455334;
+    //Save state format version,must increase when any component state layout changed
+    public static final int STATE_VERSION = 3;
+
     private final CPU cpu;
     private final APU apu;
     private final PPU ppu;
     private final MemoryBus bus;
     private final Mapper mapper;
-    private final Thread thread;
+    //Thread which currently run game loop
+    private Thread thread;
     private final JoyPad joyPad;
     private final JoyPad joyPad1;
     private final Cartridge cartridge;
+    private final FrameExchange exchange;
+    //Input movie,null if not record or playback
+    private final Movie movie;
+    //Rewind history,null if rewind disabled
+    private final Rewind rewind;
+    private final RenderMode renderMode;
+    //Run without frame pacing
+    private final boolean headless;
+    //Run-ahead frames,0 mean run-ahead disabled
+    private final int runAhead;
     private final GameLoopCallback gameLoopCallback;
 
     private int fps;
     private int tfps;
+    //Total produced frames(not cleared by reset)
+    private volatile long frames;
     //cpu stall cycle
     private int stall;
+    //Total stalled cycle,master clock = cpu cycle + stalled cycle
+    private long stallCycles;
+    //Master clock cycle which ppu and apu must catch up before
+    private long APUDeadline;
+    private long PPUDeadline;
     //APU mute
     @Setter
-    @Getter
     private boolean mute;
     private Debugger debugger;
+    //Audio/video capture recorder
+    private Recorder recorder;
     private long lastFrameTime;
     private volatile boolean stop;
     private volatile boolean reset;
-    @SuppressWarnings("all")
-    private BlockingQueue<CPUInterrupt> queue;
+    //Pending rewind request frames
+    private volatile int rewindFrames;
+    //Whether current frames are speculative run-ahead frames
+    private boolean speculating;
+    //Frame count which speculation end at
+    private long aheadTarget;
+    //Frame count which last run-ahead start from
+    private long aheadFrames;
+    //Run-ahead rollback state
+    private ByteBuffer aheadState;
+    //Fork state transfer buffer
+    private ByteBuffer forkState;
+    //NMI edge latch,set by ppu and cleared once cpu serve it
+    private boolean NMI;
+    //IRQ line,one bit per IRQSource(level triggered,asserted until source acknowledged)
+    private int IRQLine;
+    //Create player instance(null when no audio output)
     @Getter
-    private final Class<? extends Player> player;
+    private final Supplier<? extends Player> player;
 
     private NesConsole(Builder builder) {
-        if (builder.buffer != null) {
+        if (builder.cartridge != null) {
+            this.cartridge = builder.cartridge;
+        } else if (builder.buffer != null) {
             this.cartridge = new Cartridge(builder.buffer);
         } else {
             this.cartridge = new Cartridge(builder.file);
@@ -62,39 +116,144 @@ public class NesConsole {
         this.joyPad1 = new JoyPad();
         this.player = builder.player;
         this.thread = Thread.currentThread();
-        this.queue = new LinkedBlockingQueue<>(10);
+        this.headless = builder.headless;
+        this.runAhead = Math.max(builder.runAhead, 0);
         this.gameLoopCallback = builder.gameLoopCallback;
+        this.renderMode = Objects.requireNonNullElse(builder.renderMode, RenderMode.SCANLINE);
         this.mapper = this.cartridge.getMapper().newProvider(this.cartridge, this);
 
+        this.exchange = new FrameExchange();
         this.apu = new APU(builder.sampleRate, this);
         this.ppu = new PPU(this, cartridge.getMirrors());
         this.bus = new MemoryBus(this, joyPad, joyPad1);
 
 
         this.cpu = new CPU(this);
+        this.movie = builder.movie;
+        if (this.movie != null) {
+            this.movie.attach(this.cartridge);
+        }
+        this.rewind = builder.rewindInterval > 0 ? new Rewind(this, builder.rewindInterval, builder.rewindBudget) : null;
     }
 
     public void execute() {
+        this.thread = Thread.currentThread();
         while (!stop) {
-            //Check if reset flag was set and execute reset logic
-            if (this.reset) {
-                this.reset();
-            }
-            CPUInterrupt interrupt;
-            while ((interrupt = queue.poll()) != null) {
-                this.stall += this.cpu.NMI_IRQ_BRKInterrupt(interrupt);
-            }
-            var tmp = this.stall;
-            this.stall = 0;
-            while (tmp-- > 0) {
-                this.APU_PPuSync();
+            this.step();
+        }
+    }
+
+    /**
+     * Synchronous run until {@link PPU} produced {@code n} frames or console was stopped.
+     *
+     * @param n Frame number
+     */
+    public void runFrames(int n) {
+        this.thread = Thread.currentThread();
+        var target = this.frames + n;
+        while (!stop && this.frames < target) {
+            this.step();
+        }
+    }
+
+    /**
+     * Synchronous run until {@link PPU} produced next frame.
+     */
+    public void stepFrame() {
+        this.runFrames(1);
+    }
+
+    /**
+     * Execute one cpu instruction and catch up ppu/apu which event is due.
+     */
+    private void step() {
+        //Check if reset flag was set and execute reset logic
+        if (this.reset) {
+            this.reset();
+        }
+        //Real frame was produced,speculate following frames
+        if (this.runAhead > 0 && !this.speculating && this.frames != this.aheadFrames) {
+            this.runAhead();
+        }
+        if (this.rewind != null && !this.speculating) {
+            this.rewind.tick();
+            if (this.rewindFrames > 0) {
+                this.rewind.rewind(this.rewindFrames);
+                this.rewindFrames = 0;
             }
-            //Test line number has break point and block game loop
-            if (this.debugger != null && this.debugger.hack(this)) {
+        }
+        //Next ppu/apu event(NMI,IRQ,DMC fetch...) is due
+        var clock = this.clock();
+        if (clock >= this.APUDeadline) {
+            this.APUSync();
+        }
+        if (clock >= this.PPUDeadline) {
+            this.PPUSync();
+        }
+        //Interrupt lines are polled at instruction boundary,NMI has priority over IRQ
+        if (this.NMI) {
+            this.NMI = false;
+            this.stall += this.cpu.NMI_IRQ_BRKInterrupt(CPUInterrupt.NMI);
+        } else if (this.IRQLine != 0) {
+            this.stall += this.cpu.NMI_IRQ_BRKInterrupt(CPUInterrupt.IRQ);
+        }
+        this.stallCycles += this.stall;
+        this.stall = 0;
+        //Test line number has break point and block game loop
+        if (this.debugger != null) {
+            this.sync();
+            if (this.debugger.hack(this)) {
                 LockSupport.park();
             }
-            this.cpu.next();
         }
+        this.cpu.next();
+    }
+
+    /**
+     * Save state,emulate {@link #runAhead} frames with current input(only the last frame was published and audio
+     * was muted) and then roll back to saved state.
+     */
+    private void runAhead() {
+        var size = this.stateSize();
+        if (this.aheadState == null || this.aheadState.capacity() < size) {
+            this.aheadState = ByteBuffer.allocate(size);
+        }
+        this.aheadState.clear();
+        this.save(this.aheadState);
+        this.aheadFrames = this.frames;
+        this.aheadTarget = this.frames + this.runAhead;
+        this.speculating = true;
+        try {
+            this.runFrames(this.runAhead);
+        } finally {
+            this.speculating = false;
+        }
+        this.aheadState.flip();
+        this.load(this.aheadState);
+        //Speculative frames not count as produced frames
+        this.frames = this.aheadFrames;
+    }
+
+    /**
+     * Whether frame which is about to output should be published to {@link #exchange}, in run-ahead mode only the
+     * last speculative frame was published.
+     *
+     * @return If frame visible return true
+     */
+    public boolean isFrameVisible() {
+        if (this.runAhead == 0) {
+            return true;
+        }
+        return this.speculating && this.frames + 1 == this.aheadTarget;
+    }
+
+    /**
+     * Speculative run-ahead frame never output audio
+     *
+     * @return If apu mute return true
+     */
+    public boolean isMute() {
+        return this.mute || this.speculating;
     }
 
     public void setDebugger(Debugger debugger) {
@@ -105,6 +264,32 @@ public class NesConsole {
         }
     }
 
+    /**
+     * Attach or detach(null) cpu execution trace recorder,must be called from thread which run game loop or when
+     * game loop not running.
+     *
+     * @param trace Trace recorder
+     */
+    public void setTrace(CPUTrace trace) {
+        if (trace != null) {
+            trace.attach(this);
+        }
+        this.cpu.setTrace(trace);
+    }
+
+    /**
+     * Attach or detach(null) audio/video capture recorder,must be called from thread which run game loop or when
+     * game loop not running. Detached recorder should be closed by caller.
+     *
+     * @param recorder Capture recorder
+     */
+    public void setRecorder(Recorder recorder) {
+        this.recorder = recorder;
+        if (recorder != null) {
+            recorder.attach(this);
+        }
+    }
+
     /**
      * This is util method,read target address memory value
      *
@@ -127,40 +312,69 @@ public class NesConsole {
         this.fps = 0;
         this.tfps = 0;
         this.stall = 0;
+        this.NMI = false;
+        this.IRQLine = 0;
         this.apu.reset();
         this.ppu.reset();
+        this.apu.setClock(this.clock());
+        this.ppu.setClock(this.clock());
         this.cpu.reset();
         this.bus.reset();
+        this.APUDeadline = this.PPUDeadline = this.clock();
         this.reset = false;
         this.lastFrameTime = 0;
     }
 
     /**
-     * {@link APU} AND {@link  PPU} trigger IRQ AND NMI interrupt.
+     * {@link PPU} NMI output goes high,NMI was served at next instruction boundary.
+     */
+    public void triggerNMI() {
+        this.NMI = true;
+    }
+
+    /**
+     * Assert or acknowledge IRQ line of a source({@link APU} frame counter,DMC and mapper).IRQ was served at every
+     * instruction boundary while any source keep the line asserted and cpu interrupt disable flag is clear.
      *
-     * @param interrupt interrupt type
+     * @param source IRQ source
+     * @param active {@code true} assert,{@code false} acknowledge
      */
-    public void hardwareInterrupt(CPUInterrupt interrupt) {
-        this.queue.add(interrupt);
+    public void setIRQ(IRQSource source, boolean active) {
+        if (active) {
+            this.IRQLine |= source.mask();
+        } else {
+            this.IRQLine &= ~source.mask();
+        }
     }
 
 
     public void videoOutput(long nano, boolean renderEnable, Frame frame) {
-        //Due to gameLoopCallback design immutable if gameLoopCallback was null direct return?
-        if (gameLoopCallback == null) {
+        this.frames++;
+        //Speculative frame not visible to game loop callback
+        if (this.speculating) {
             return;
         }
-        this.tfps++;
-        if (this.lastFrameTime == 0) {
-            this.lastFrameTime = nano;
+        //Due to gameLoopCallback design immutable if gameLoopCallback was null skip it
+        if (gameLoopCallback != null) {
+            this.tfps++;
+            if (this.lastFrameTime == 0) {
+                this.lastFrameTime = nano;
+            }
+            var span = nano - this.lastFrameTime;
+            if (span > 1000_000_000) {
+                this.fps = this.tfps;
+                this.tfps = 0;
+                this.lastFrameTime = nano;
+            }
+            this.gameLoopCallback.accept(this.fps, renderEnable, frame, this.joyPad, this.joyPad1);
         }
-        var span = nano - this.lastFrameTime;
-        if (span > 1000_000_000) {
-            this.fps = this.tfps;
-            this.tfps = 0;
-            this.lastFrameTime = nano;
+        //Record or replay input after callback polled input
+        if (this.movie != null) {
+            this.movie.frame(this);
+        }
+        if (this.recorder != null) {
+            this.recorder.video(frame);
         }
-        this.gameLoopCallback.accept(this.fps, renderEnable, frame, this.joyPad, this.joyPad1);
     }
 
     public void setStall(int span) {
@@ -190,18 +404,215 @@ public class NesConsole {
         return this.cartridge.getTv() == TV.NTSC ? 60 : 50;
     }
 
-    public void APU_PPuSync() {
-        this.apu.tick();
-        this.ppu.tick();
+    /**
+     * Master clock cycle(cpu cycle plus stalled cycle)
+     *
+     * @return Current master clock cycle
+     */
+    public long clock() {
+        return this.cpu.getCycles() + this.stallCycles;
+    }
+
+    /**
+     * Catch up {@link APU} and {@link PPU} to current master clock cycle.
+     */
+    public void sync() {
+        this.APUSync();
+        this.PPUSync();
+    }
+
+    /**
+     * Catch up {@link APU} to current master clock cycle and predict next cycle which it must be caught up
+     * again(frame counter step,DMC fetch).
+     */
+    public void APUSync() {
+        var clock = this.clock();
+        this.apu.sync(clock);
+        this.APUDeadline = clock + this.apu.nextEvent();
+    }
+
+    /**
+     * Catch up {@link PPU} to current master clock cycle and predict next cycle which it must be caught up
+     * again(vblank NMI).
+     */
+    public void PPUSync() {
+        var clock = this.clock();
+        this.ppu.sync(clock);
+        this.PPUDeadline = clock + this.ppu.nextEvent();
+    }
+
+
+    /**
+     * Request rewind to the state about {@code frames} frames ago, rewind happen in game loop before next
+     * instruction. Do nothing if rewind was not enabled by {@link Builder#rewind(int, int)}.
+     *
+     * @param frames Frames to rewind
+     */
+    public void rewind(int frames) {
+        if (this.rewind != null && frames > 0) {
+            this.rewindFrames = frames;
+        }
+    }
+
+    /**
+     * Fork an independent console from current state.
+     * <p>
+     * Forked console share immutable cartridge rom with current console, cpu ram,expansion rom,sram,written
+     * ch-rom and decoded tiles were shared as copy-on-write pages until two consoles diverge. Register state(cpu,
+     * ppu,apu,mapper) was copied and ppu vram(4 KB),oam(256 B) and palette(32 B) were copied eagerly through ppu
+     * save/load, so every fork allocate about 13 KB(console objects included) even if it never diverge, spawning
+     * thousands of branches cost tens of MB. Cpu instruction handlers are shared by all consoles and frame
+     * buffer(about 135 KB with first touched pages) is allocated when forked console first render. Forked console
+     * is headless and has no audio player,game loop callback,rewind history and run-ahead. Must be called from
+     * thread which run game loop or when game loop not running.
+     * </p>
+     *
+     * @return Forked console
+     */
+    public NesConsole fork() {
+        this.sync();
+        var builder = Builder
+                .newBuilder()
+                .headless(true)
+                .renderMode(this.renderMode)
+                .sampleRate(this.apu.getSampleRate());
+        builder.cartridge = this.cartridge;
+        var target = new NesConsole(builder);
+        if (this.forkState == null) {
+            this.forkState = ByteBuffer.allocate(this.stateSize());
+        }
+        var buffer = this.forkState.clear();
+        this.cpu.save(buffer);
+        this.ppu.save(buffer);
+        this.apu.save(buffer);
+        this.mapper.save(buffer);
+        buffer.flip();
+        target.cpu.load(buffer);
+        target.ppu.load(buffer);
+        target.apu.load(buffer);
+        target.mapper.load(buffer);
+        this.bus.fork(target.bus);
+        this.mapper.CHRShare(target.mapper);
+        target.mute = this.mute;
+        target.stall = this.stall;
+        target.frames = this.frames;
+        target.stallCycles = this.stallCycles;
+        target.NMI = this.NMI;
+        target.IRQLine = this.IRQLine;
+        target.reset = false;
+        target.APUDeadline = target.PPUDeadline = target.clock();
+        return target;
+    }
+
+    /**
+     * Save state size upper bound,it grows once when game write to ch-rom.
+     *
+     * @return Byte size
+     */
+    public int stateSize() {
+        //Fixed size component state
+        var size = 4096;
+        //Cpu ram,expansion rom,sram
+        size += 0x800 + 0x2000 + 0x2000;
+        //Vram,oam and palette
+        size += 0x1000 + 0x100 + 0x20;
+        if (this.mapper.CHRStateful()) {
+            size += this.cartridge.getChrom().length;
+        }
+        return size;
+    }
+
+    /**
+     * Save whole machine state into caller provided buffer(no allocation). Must be called from thread which run
+     * game loop or when game loop not running.
+     *
+     * @param buffer Target buffer,remaining at least {@link #stateSize()}
+     */
+    public void save(ByteBuffer buffer) {
+        //Catch up ppu and apu so that all component reach same master clock cycle
+        this.sync();
+        buffer.putInt(STATE_MAGIC);
+        buffer.putInt(STATE_VERSION);
+        buffer.putInt(this.cartridge.getRgbSize());
+        buffer.putInt(this.cartridge.getChSize());
+        buffer.putInt(this.stall);
+        buffer.putLong(this.stallCycles);
+        putBool(buffer, this.NMI);
+        buffer.put((byte) this.IRQLine);
+        this.cpu.save(buffer);
+        this.bus.save(buffer);
+        this.ppu.save(buffer);
+        this.apu.save(buffer);
+        this.mapper.save(buffer);
+        this.mapper.CHRSave(buffer);
+    }
+
+    /**
+     * Recovery whole machine state from buffer which written by {@link #save(ByteBuffer)}. Must be called from
+     * thread which run game loop or when game loop not running.
+     *
+     * @param buffer Save state buffer
+     */
+    public void load(ByteBuffer buffer) {
+        if (buffer.getInt() != STATE_MAGIC) {
+            throw new IllegalArgumentException("Illegal save state.");
+        }
+        var version = buffer.getInt();
+        if (version != STATE_VERSION) {
+            throw new IllegalArgumentException("Unsupported save state version:" + version);
+        }
+        if (buffer.getInt() != this.cartridge.getRgbSize() || buffer.getInt() != this.cartridge.getChSize()) {
+            throw new IllegalArgumentException("Save state not belong to current cartridge.");
+        }
+        this.stall = buffer.getInt();
+        this.stallCycles = buffer.getLong();
+        this.NMI = getBool(buffer);
+        this.IRQLine = buffer.get();
+        this.cpu.load(buffer);
+        this.bus.load(buffer);
+        this.ppu.load(buffer);
+        this.apu.load(buffer);
+        this.mapper.load(buffer);
+        this.mapper.CHRLoad(buffer);
+        //Loaded state replace pending reset and ppu/apu must recalculate next event
+        this.reset = false;
+        this.APUDeadline = this.PPUDeadline = this.clock();
+    }
+
+    /**
+     * Snapshot whole machine state
+     *
+     * @return Save state data
+     */
+    public byte[] snapshot() {
+        var buffer = ByteBuffer.allocate(this.stateSize());
+        this.save(buffer);
+        return Arrays.copyOf(buffer.array(), buffer.position());
     }
 
+    /**
+     * Recovery whole machine state from {@link #snapshot()} data
+     *
+     * @param snapshot Save state data
+     */
+    public void load(byte[] snapshot) {
+        this.load(ByteBuffer.wrap(snapshot));
+    }
 
     public static class Builder {
         private File file;
         private byte[] buffer;
         private AudioSampleRate sampleRate;
-        private Class<? extends Player> player;
+        private RenderMode renderMode;
+        private boolean headless;
+        private int rewindInterval;
+        private int rewindBudget;
+        private int runAhead;
+        private Supplier<? extends Player> player;
         private GameLoopCallback gameLoopCallback;
+        private Movie movie;
+        //Parsed cartridge which shared by forked console
+        private Cartridge cartridge;
 
         public Builder buffer(byte[] buffer) {
             this.buffer = buffer;
@@ -219,7 +630,19 @@ public class NesConsole {
         }
 
         public Builder player(Class<? extends Player> clazz) {
-            this.player = clazz;
+            this.player = () -> Player.newInstance(clazz);
+            return this;
+        }
+
+        /**
+         * Use player which discovered by {@link java.util.ServiceLoader}
+         *
+         * @param name Player name(provider class simple name) see {@link Player#providers()}
+         */
+        public Builder player(String name) {
+            this.player = Player
+                    .lookup(name)
+                    .orElseThrow(() -> new IllegalArgumentException("Player not found:" + name));
             return this;
         }
 
@@ -233,6 +656,52 @@ public class NesConsole {
             return this;
         }
 
+        public Builder renderMode(RenderMode renderMode) {
+            this.renderMode = renderMode;
+            return this;
+        }
+
+        /**
+         * Headless console run without frame pacing, combine with {@code null} player no audio device was opened.
+         */
+        public Builder headless(boolean headless) {
+            this.headless = headless;
+            return this;
+        }
+
+        /**
+         * Enable rewind history
+         *
+         * @param interval Frames per captured state
+         * @param budget   History memory budget in bytes
+         */
+        public Builder rewind(int interval, int budget) {
+            this.rewindInterval = interval;
+            this.rewindBudget = budget;
+            return this;
+        }
+
+        /**
+         * Enable run-ahead,after every real frame emulate {@code frames} frames ahead and show the speculative
+         * frame to reduce perceived input latency.
+         *
+         * @param frames Run-ahead frames(usually 1-3)
+         */
+        public Builder runAhead(int frames) {
+            this.runAhead = frames;
+            return this;
+        }
+
+        /**
+         * Record input into movie or playback movie input from power on
+         *
+         * @param movie Input movie
+         */
+        public Builder movie(Movie movie) {
+            this.movie = movie;
+            return this;
+        }
+
         public NesConsole build() {
             return new NesConsole(this);
         }
@@ -0,0 +1,302 @@
+package cn.navclub.nes4j.bin;
+
+import lombok.Getter;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Rewind ring buffer.
+ * <p>
+ * Every {@code interval} frames a machine state was captured by {@link NesConsole#save(ByteBuffer)}. Only the newest
+ * state was kept in full, every older state was kept as a XOR delta against its successor and compressed by zero run
+ * length encoding, because ram,vram and sram change little between two captures most of the delta is zero run.
+ * Deltas are stored in a fixed size byte ring, the oldest deltas are dropped when ring is full.
+ * </p>
+ * <pre>
+ *     delta: [zero run varint][literal length varint][literal xor bytes]...
+ * </pre>
+ *
+ * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
+ */
+public class Rewind {
+    private final NesConsole console;
+    //Frames per capture
+    @Getter
+    private final int interval;
+    //Delta ring
+    private final byte[] store;
+    //Delta store offset
+    private final int[] offsets;
+    //Delta byte length
+    private final int[] lengths;
+    //Size of state which delta recover to
+    private final int[] sizes;
+    //Oldest delta index
+    private int head;
+    //Delta count
+    @Getter
+    private int count;
+    //Next delta write offset
+    private int cursor;
+    //Delta decode offset
+    private int readPos;
+    //Newest state
+    private byte[] state;
+    private ByteBuffer stateView;
+    private int size;
+    //State capture buffer
+    private byte[] scratch;
+    private ByteBuffer scratchView;
+    //Frames since newest state captured,-1 mean no state captured
+    private int elapsed;
+    private long lastFrames;
+
+    /**
+     * @param console  Target console
+     * @param interval Frames per capture
+     * @param budget   Delta ring memory budget in bytes
+     */
+    public Rewind(NesConsole console, int interval, int budget) {
+        if (interval <= 0 || budget <= 0) {
+            throw new IllegalArgumentException("Rewind interval and budget must be positive.");
+        }
+        this.console = console;
+        this.interval = interval;
+        this.store = new byte[budget];
+        //Assume average delta not less than 64 bytes
+        var capacity = Math.max(16, budget / 64);
+        this.sizes = new int[capacity];
+        this.offsets = new int[capacity];
+        this.lengths = new int[capacity];
+        this.state = new byte[0];
+        this.scratch = new byte[0];
+        this.stateView = this.view(this.state);
+        this.scratchView = this.view(this.scratch);
+        this.elapsed = -1;
+    }
+
+    /**
+     * Called by game loop between two instructions, capture state when {@code interval} frames elapsed.
+     */
+    protected void tick() {
+        var frames = this.console.getFrames();
+        if (frames == this.lastFrames) {
+            return;
+        }
+        this.lastFrames = frames;
+        if (this.elapsed >= 0 && ++this.elapsed < this.interval) {
+            return;
+        }
+        this.capture();
+    }
+
+    private void capture() {
+        var length = this.console.stateSize();
+        if (this.scratch.length < length) {
+            this.scratch = new byte[length];
+            this.scratchView = this.view(this.scratch);
+        }
+        this.scratchView.clear();
+        this.console.save(this.scratchView);
+        var size = this.scratchView.position();
+        //Keep unused tail zero so that delta only cover real state data
+        Arrays.fill(this.scratch, size, this.scratch.length, (byte) 0);
+        if (this.elapsed >= 0) {
+            this.push(size);
+        }
+        //Swap newest state
+        var tmp = this.state;
+        var view = this.stateView;
+        this.state = this.scratch;
+        this.stateView = this.scratchView;
+        this.scratch = tmp;
+        this.scratchView = view;
+        this.size = size;
+        this.elapsed = 0;
+    }
+
+    /**
+     * Encode delta which recover new state(scratch) to previous state and append to ring
+     */
+    private void push(int size) {
+        var length = Math.max(size, this.size);
+        //Worst case all bytes was literal
+        var bound = length + 16;
+        if (bound > this.store.length) {
+            this.clear();
+            return;
+        }
+        if (this.cursor + bound > this.store.length) {
+            this.cursor = 0;
+        }
+        //Drop oldest deltas overlap with write region
+        while (this.count > 0 && this.overlap(this.offsets[this.head], this.lengths[this.head], this.cursor, bound)) {
+            this.head = (this.head + 1) % this.offsets.length;
+            this.count--;
+        }
+        if (this.count == this.offsets.length) {
+            this.head = (this.head + 1) % this.offsets.length;
+            this.count--;
+        }
+        var index = (this.head + this.count) % this.offsets.length;
+        this.offsets[index] = this.cursor;
+        this.lengths[index] = this.encode(length, this.cursor) - this.cursor;
+        this.sizes[index] = this.size;
+        this.cursor += this.lengths[index];
+        this.count++;
+    }
+
+    private ByteBuffer view(byte[] array) {
+        return ByteBuffer.wrap(array).order(ByteOrder.nativeOrder());
+    }
+
+    private boolean overlap(int offset, int length, int start, int bound) {
+        return offset < start + bound && start < offset + length;
+    }
+
+    /**
+     * Zero run length encode {@code scratch ^ state} into store
+     *
+     * @return Store offset after encoded data
+     */
+    private int encode(int length, int pos) {
+        var a = this.scratchView;
+        var b = this.stateView;
+        var i = 0;
+        while (i < length) {
+            var start = i;
+            //Compare eight bytes at once while skip unchanged data
+            while (i + 8 <= length && i + 8 <= this.scratch.length && i + 8 <= this.state.length
+                    && a.getLong(i) == b.getLong(i)) {
+                i += 8;
+            }
+            while (i < length && this.xor(i) == 0) {
+                i++;
+            }
+            var run = i - start;
+            if (i == length) {
+                if (run > 0) {
+                    pos = this.varint(pos, run);
+                    pos = this.varint(pos, 0);
+                }
+                break;
+            }
+            var literal = i;
+            //Literal end at next eight zero bytes(a shorter zero run is cheaper kept in literal)
+            var zero = 0;
+            while (i < length && zero < 8) {
+                zero = this.xor(i) == 0 ? zero + 1 : 0;
+                i++;
+            }
+            var end = zero == 8 ? i - 8 : i;
+            i = end;
+            pos = this.varint(pos, run);
+            pos = this.varint(pos, end - literal);
+            for (int j = literal; j < end; j++) {
+                this.store[pos++] = this.xor(j);
+            }
+        }
+        return pos;
+    }
+
+    private byte xor(int i) {
+        var a = i < this.scratch.length ? this.scratch[i] : 0;
+        var b = i < this.state.length ? this.state[i] : 0;
+        return (byte) (a ^ b);
+    }
+
+    private int varint(int pos, int value) {
+        while ((value & ~0x7f) != 0) {
+            this.store[pos++] = (byte) ((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        this.store[pos++] = (byte) value;
+        return pos;
+    }
+
+    private int readVarint() {
+        var value = 0;
+        var shift = 0;
+        byte b;
+        do {
+            b = this.store[this.readPos++];
+            value |= (b & 0x7f) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+
+    /**
+     * Apply newest delta to newest state(newest state become previous state)
+     */
+    private void pop() {
+        var index = (this.head + this.count - 1) % this.offsets.length;
+        var size = this.sizes[index];
+        if (this.state.length < size) {
+            var tmp = new byte[size];
+            System.arraycopy(this.state, 0, tmp, 0, this.size);
+            this.state = tmp;
+            this.stateView = this.view(tmp);
+        }
+        this.readPos = this.offsets[index];
+        var end = this.readPos + this.lengths[index];
+        var i = 0;
+        while (this.readPos < end) {
+            i += this.readVarint();
+            var literal = this.readVarint();
+            for (int j = 0; j < literal; j++, i++) {
+                this.state[i] ^= this.store[this.readPos++];
+            }
+        }
+        this.size = size;
+        this.count--;
+        this.cursor = this.offsets[index];
+    }
+
+    /**
+     * Rewind console to the state about {@code frames} frames ago(aligned to capture interval), stop at oldest
+     * state when history is not enough.
+     *
+     * @param frames Frames to rewind
+     * @return Frames actually rewound
+     */
+    protected int rewind(int frames) {
+        if (this.elapsed < 0) {
+            return 0;
+        }
+        var rewound = this.elapsed;
+        while (rewound < frames && this.count > 0) {
+            this.pop();
+            rewound += this.interval;
+        }
+        this.stateView.clear().limit(this.size);
+        this.console.load(this.stateView);
+        this.elapsed = 0;
+        this.lastFrames = this.console.getFrames();
+        return rewound;
+    }
+
+    /**
+     * Seconds of history which currently kept
+     *
+     * @return History seconds
+     */
+    public double seconds() {
+        if (this.elapsed < 0) {
+            return 0;
+        }
+        return (double) (this.count * this.interval + this.elapsed) / this.console.TVFps();
+    }
+
+    /**
+     * Drop all history
+     */
+    public void clear() {
+        this.head = 0;
+        this.count = 0;
+        this.cursor = 0;
+        this.elapsed = -1;
+    }
+}
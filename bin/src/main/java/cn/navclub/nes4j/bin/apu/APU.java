@@ -4,9 +4,13 @@ import cn.navclub.nes4j.bin.NesConsole;
 import cn.navclub.nes4j.bin.config.AudioSampleRate;
 import cn.navclub.nes4j.bin.core.Component;
 import cn.navclub.nes4j.bin.apu.impl.*;
-import cn.navclub.nes4j.bin.config.CPUInterrupt;
+import cn.navclub.nes4j.bin.config.IRQSource;
+import cn.navclub.nes4j.bin.config.SampleEncoding;
+import cn.navclub.nes4j.bin.config.TV;
 import lombok.Getter;
+import lombok.Setter;
 
+import java.nio.ByteBuffer;
 import java.util.Objects;
 import java.util.Optional;
 
@@ -77,6 +81,12 @@ public class APU implements Component {
         }
     }
 
+    //Mixer output amplitude scale
+    private static final int AMPLITUDE = 0xffff;
+    //Cpu clock rate
+    private static final int NTSC_CLOCK = 1789773;
+    private static final int PAL_CLOCK = 1662607;
+
     private final DMChannel dmc;
     private final Player player;
     @Getter
@@ -88,6 +98,18 @@ public class APU implements Component {
     private final FrameCounter frameCounter;
     @Getter
     private final AudioSampleRate sampleRate;
+    //Band-limited synthesis buffer(null when no player)
+    private final BlipBuffer blip;
+    //Cpu cycles per synthesis block(about a video frame)
+    private final int block;
+    private final int[] samples;
+    //Block delivered to player in negotiated format
+    private final SampleBlock sampleBlock;
+    //Cpu cycles since synthesis block start
+    private int blipTime;
+    //Channel outputs which last mixed(packed) and its amplitude
+    private int mixKey;
+    private int amplitude;
 
     public APU(AudioSampleRate sampleRate, NesConsole console) {
         this.console = console;
@@ -99,7 +121,24 @@ public class APU implements Component {
         this.pulse2 = new PulseChannel(this, true);
         this.frameCounter = new FrameCounter(this, this::frameSequence);
         this.sampleRate = Objects.requireNonNullElse(sampleRate, AudioSampleRate.HZ96000);
-        this.player = Player.newInstance(console.getPlayer(), this.sampleRate.sample);
+        //Player is optional(headless console)
+        if (console.getPlayer() != null) {
+            var clockRate = console.getCartridge().getTv() == TV.NTSC ? NTSC_CLOCK : PAL_CLOCK;
+            this.player = console.getPlayer().get();
+            var format = Objects.requireNonNull(
+                    this.player.open(new SampleFormat(this.sampleRate.sample, SampleEncoding.PCM_S16, 1)),
+                    "Player.open must return accepted sample format.");
+            this.block = clockRate / console.TVFps();
+            this.blip = new BlipBuffer(clockRate, format.sampleRate(), this.block);
+            this.samples = new int[this.blip.getCapacity()];
+            this.sampleBlock = new SampleBlock(format, this.blip.getCapacity());
+        } else {
+            this.block = 0;
+            this.blip = null;
+            this.samples = null;
+            this.sampleBlock = null;
+            this.player = null;
+        }
     }
 
     @Override
@@ -204,6 +243,9 @@ public class APU implements Component {
     }
 
     private long cycle;
+    //Master clock cycle which current apu has reached
+    @Setter
+    private long clock;
 
     @Override
     public void tick() {
@@ -217,18 +259,132 @@ public class APU implements Component {
         this.dmc.tick();
         this.triangle.tick();
         this.frameCounter.tick();
-        if ((this.cycle / 2) % sampleRate.value == 0) {
-            var output = this.lookupSample();
-            if (this.player != null && !this.console.isMute()) {
-                this.player.output(output);
+        //Speculative(run-ahead) audio is never heard,skip synthesis
+        if (this.blip != null && !this.console.isSpeculating()) {
+            this.mix();
+        }
+    }
+
+    /**
+     * Add mixer amplitude change into synthesis buffer,output samples once a block end.
+     */
+    private void mix() {
+        var key = this.outputKey();
+        if (key != this.mixKey) {
+            this.mixKey = key;
+            var amplitude = lookupAmplitude(key & 0xf, key >> 4 & 0xf, key >> 8 & 0xf, key >> 12 & 0xf, key >> 16);
+            this.blip.addDelta(this.blipTime, amplitude - this.amplitude);
+            this.amplitude = amplitude;
+        }
+        if (++this.blipTime < this.block) {
+            return;
+        }
+        this.blip.endBlock(this.blipTime);
+        this.blipTime = 0;
+        var count = this.blip.read(this.samples);
+        var recorder = this.console.getRecorder();
+        if (recorder != null) {
+            recorder.audio(this.samples, count);
+        }
+        if (this.console.isMute()) {
+            return;
+        }
+        this.sampleBlock.fill(this.samples, count);
+        this.player.output(this.sampleBlock);
+    }
+
+    /**
+     * Synthesis output sample rate(negotiated with player)
+     *
+     * @return Sample rate,0 when there is no player(no synthesis)
+     */
+    public int outputRate() {
+        return this.sampleBlock == null ? 0 : this.sampleBlock.getFormat().sampleRate();
+    }
+
+    /**
+     * Channel outputs packed as mixer key(pulse1,pulse2,triangle,noise 4 bit each and dmc 8 bit)
+     */
+    private int outputKey() {
+        return this.pulse1.output()
+                | this.pulse2.output() << 4
+                | this.triangle.output() << 8
+                | this.noise.output() << 12
+                | this.dmc.output() << 16;
+    }
+
+    /**
+     * Catch up to target master clock cycle.
+     * <p>
+     * Between channel events(timer reload which clock a sequencer,DMC output unit clock,frame counter step) a
+     * cycle only count timers down and channel output not change, so such cycles were skipped in bulk and only
+     * event cycles were ticked one by one. Result is exactly same as tick every cycle.
+     * </p>
+     *
+     * @param clock Target master clock cycle
+     */
+    public void sync(long clock) {
+        while (this.clock < clock) {
+            var span = this.idle(clock - this.clock);
+            if (span > 0) {
+                this.skip(span);
+                this.clock += span;
+            } else {
+                this.tick();
+                this.clock++;
             }
         }
+    }
 
-        // At any time, if the interrupt flag is set, the CPU's IRQ line is continuously asserted
-        // until the interrupt flag is cleared. The processor will continue on from where it was stalled.
-        if (this.dmc.isIRQFlag()) {
-            this.fireIRQ();
+    /**
+     * Cpu cycles from now on which can be skipped
+     *
+     * @param limit Max cycles
+     * @return Cpu cycles
+     */
+    private int idle(long limit) {
+        var span = limit;
+        if (this.blip != null && !this.console.isSpeculating()) {
+            //Output changed(register written) must be mixed at next cycle
+            if (this.outputKey() != this.mixKey) {
+                return 0;
+            }
+            //Block end cycle must be ticked
+            span = Math.min(span, this.block - this.blipTime - 1);
         }
+        span = Math.min(span, this.frameCounter.nextEvent() - 1);
+        span = Math.min(span, this.dmc.idle());
+        span = Math.min(span, this.triangle.idle());
+        //Pulse and noise timer are clocked at even cycle
+        var odd = this.cycle % 2 == 0 ? 1 : 0;
+        span = Math.min(span, 2L * this.pulse1.idle() + odd);
+        span = Math.min(span, 2L * this.pulse2.idle() + odd);
+        span = Math.min(span, 2L * this.noise.idle() + odd);
+        return (int) span;
+    }
+
+    private void skip(int n) {
+        var ticks = (int) ((this.cycle + n) / 2 - this.cycle / 2);
+        this.cycle += n;
+        this.pulse1.skip(ticks);
+        this.pulse2.skip(ticks);
+        this.noise.skip(ticks);
+        this.dmc.skip(n);
+        this.triangle.skip(n);
+        this.frameCounter.skip(n);
+        if (this.blip != null && !this.console.isSpeculating()) {
+            this.blipTime += n;
+        }
+    }
+
+    /**
+     * Predict how many cpu cycles later apu will generate an event(frame counter step,DMC memory fetch) which
+     * effect cpu.
+     *
+     * @return cpu cycles
+     */
+    public long nextEvent() {
+        return Math.min(this.frameCounter.nextEvent(), this.dmc.nextEvent());
     }
 
     /**
@@ -255,22 +411,23 @@ public class APU implements Component {
      *     tnd_out = tnd_table [3 * triangle + 2 * noise + dmc]
      * </pre>
      */
-    private byte lookupSample() {
-        var d0 = this.dmc.output();
-        var n0 = this.noise.output();
-        var p1 = this.pulse1.output();
-        var p2 = this.pulse2.output();
-        var t0 = this.triangle.output();
-
+    private static int lookupAmplitude(int p1, int p2, int t0, int n0, int d0) {
         var seqOut = PULSE_TABLE[p2 + p1];
         var tndOut = TND_TABLE[3 * t0 + 2 * n0 + d0];
         var sample = tndOut + seqOut;
-        return int8(Math.round(sample * 0xff));
+        return Math.round(sample * AMPLITUDE);
     }
 
 
-    public void fireIRQ() {
-        this.console.hardwareInterrupt(CPUInterrupt.IRQ);
+    /**
+     * At any time, if a channel interrupt flag is set, the CPU's IRQ line is continuously asserted
+     * until the interrupt flag is cleared.
+     *
+     * @param source IRQ source(frame counter or DMC)
+     * @param active Interrupt flag
+     */
+    public void setIRQ(IRQSource source, boolean active) {
+        this.console.setIRQ(source, active);
     }
 
     @Override
@@ -308,8 +465,34 @@ public class APU implements Component {
         this.noise.reset();
         this.pulse1.reset();
         this.pulse2.reset();
-        this.player.reset();
+        if (this.player != null) {
+            this.player.reset();
+        }
         this.triangle.reset();
         this.frameCounter.reset();
     }
+
+    @Override
+    public void save(ByteBuffer buffer) {
+        buffer.putLong(this.cycle);
+        buffer.putLong(this.clock);
+        this.dmc.save(buffer);
+        this.noise.save(buffer);
+        this.pulse1.save(buffer);
+        this.pulse2.save(buffer);
+        this.triangle.save(buffer);
+        this.frameCounter.save(buffer);
+    }
+
+    @Override
+    public void load(ByteBuffer buffer) {
+        this.cycle = buffer.getLong();
+        this.clock = buffer.getLong();
+        this.dmc.load(buffer);
+        this.noise.load(buffer);
+        this.pulse1.load(buffer);
+        this.pulse2.load(buffer);
+        this.triangle.load(buffer);
+        this.frameCounter.load(buffer);
+    }
 }
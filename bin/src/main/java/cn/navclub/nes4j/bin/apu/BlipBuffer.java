@@ -0,0 +1,135 @@
+package cn.navclub.nes4j.bin.apu;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+
+/**
+ * Band-limited synthesis buffer.
+ * <p>
+ * Instead of point sample mixer output at fixed cpu cycle interval(aliasing and rounded rate), every amplitude change
+ * was added as a delta at its exact cpu cycle, the delta was spread over {@link #WIDTH} output samples by a windowed
+ * sinc step kernel so that output contain no frequency above nyquist. Output samples are produced in bulk when a
+ * block end, sample position is kept in 32.32 fixed point and fraction carry over blocks so output rate is exact.
+ * </p>
+ *
+ * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
+ */
+public class BlipBuffer {
+    //Sample position fraction bits
+    private static final int FRAC_BITS = 32;
+    //Kernel phase(sub sample position) resolution
+    private static final int PHASE_BITS = 6;
+    private static final int PHASES = 1 << PHASE_BITS;
+    //Output samples a step was spread over
+    private static final int WIDTH = 16;
+    //Kernel fixed point bits(each phase sum to 1 << KERNEL_BITS)
+    private static final int KERNEL_BITS = 12;
+    //Pass band edge(fraction of sample rate)
+    private static final double CUTOFF = 0.45;
+    private static final int[][] KERNEL;
+
+    static {
+        KERNEL = new int[PHASES][WIDTH];
+        for (int p = 0; p < PHASES; p++) {
+            var taps = new double[WIDTH];
+            var sum = 0.0;
+            for (int i = 0; i < WIDTH; i++) {
+                //Distance from step to tap
+                var x = i - WIDTH / 2.0 + 0.5 - (double) p / PHASES;
+                var sinc = x == 0 ? 2 * CUTOFF : Math.sin(2 * Math.PI * CUTOFF * x) / (Math.PI * x);
+                //Blackman window
+                var u = x / (WIDTH / 2.0);
+                var window = Math.abs(u) >= 1 ? 0 : 0.42 + 0.5 * Math.cos(Math.PI * u) + 0.08 * Math.cos(2 * Math.PI * u);
+                taps[i] = sinc * window;
+                sum += taps[i];
+            }
+            var total = 0;
+            var peak = 0;
+            for (int i = 0; i < WIDTH; i++) {
+                KERNEL[p][i] = (int) Math.round(taps[i] / sum * (1 << KERNEL_BITS));
+                total += KERNEL[p][i];
+                if (KERNEL[p][i] > KERNEL[p][peak]) {
+                    peak = i;
+                }
+            }
+            //Keep step height exact so that integrator never drift
+            KERNEL[p][peak] += (1 << KERNEL_BITS) - total;
+        }
+    }
+
+    //Output sample per input clock in 32.32 fixed point
+    private final long factor;
+    //Max samples of a block
+    @Getter
+    private final int capacity;
+    private final int[] buffer;
+    //Position of block start in 32.32 fixed point(integer part is samples ready to read)
+    private long offset;
+    //Running sum of read deltas
+    private int integrator;
+
+    /**
+     * @param clockRate  Input clock rate(cpu cycles per second)
+     * @param sampleRate Output sample rate
+     * @param block      Max input clocks of a block
+     */
+    public BlipBuffer(long clockRate, int sampleRate, int block) {
+        this.factor = Math.round((double) sampleRate * (1L << FRAC_BITS) / clockRate);
+        this.capacity = (int) ((block * this.factor) >>> FRAC_BITS) + 2;
+        this.buffer = new int[this.capacity + WIDTH];
+    }
+
+    /**
+     * Add an amplitude delta
+     *
+     * @param time  Input clock since block start
+     * @param delta Amplitude delta
+     */
+    public void addDelta(int time, int delta) {
+        var fixed = time * this.factor + this.offset;
+        var index = (int) (fixed >>> FRAC_BITS);
+        var kernel = KERNEL[(int) (fixed >>> (FRAC_BITS - PHASE_BITS)) & (PHASES - 1)];
+        var buffer = this.buffer;
+        for (int i = 0; i < WIDTH; i++) {
+            buffer[index + i] += kernel[i] * delta;
+        }
+    }
+
+    /**
+     * End current block,samples before block end become ready to read
+     *
+     * @param time Input clocks of the block
+     */
+    public void endBlock(int time) {
+        this.offset += time * this.factor;
+    }
+
+    /**
+     * Samples ready to read
+     */
+    public int available() {
+        return (int) (this.offset >>> FRAC_BITS);
+    }
+
+    /**
+     * Read all ready samples
+     *
+     * @param out Output amplitude,length at least {@link #getCapacity()}
+     * @return Sample count
+     */
+    public int read(int[] out) {
+        var count = this.available();
+        var sum = this.integrator;
+        for (int i = 0; i < count; i++) {
+            sum += this.buffer[i];
+            out[i] = (sum + (1 << (KERNEL_BITS - 1))) >> KERNEL_BITS;
+        }
+        this.integrator = sum;
+        //Move kernel tail which spread over next block to front
+        System.arraycopy(this.buffer, count, this.buffer, 0, WIDTH);
+        Arrays.fill(this.buffer, WIDTH, count + WIDTH, 0);
+        this.offset -= (long) count << FRAC_BITS;
+        return count;
+    }
+}
@@ -3,6 +3,10 @@ package cn.navclub.nes4j.bin.apu;
 import cn.navclub.nes4j.bin.core.Component;
 import lombok.Getter;
 
+import java.nio.ByteBuffer;
+
+import static cn.navclub.nes4j.bin.util.BinUtil.getBool;
+import static cn.navclub.nes4j.bin.util.BinUtil.putBool;
 import static cn.navclub.nes4j.bin.util.BinUtil.uint8;
 
 /**
@@ -57,6 +61,32 @@ public abstract class Channel<T extends Sequencer> implements Component {
         this.timer.tick();
     }
 
+    /**
+     * Timer ticks from now on which can be skipped by {@link #skip(int)},during these ticks output not change.
+     *
+     * @return Tick number
+     */
+    public int idle() {
+        //Sequencer clocks are inaudible when channel was muted
+        return this.mute() ? Integer.MAX_VALUE : this.timer.idle();
+    }
+
+    /**
+     * Advance {@code n} timer ticks in bulk
+     *
+     * @param n Tick number(at most {@link #idle()})
+     */
+    public void skip(int n) {
+        this.timer.skip(n);
+    }
+
+    /**
+     * Whether output was 0 whatever sequencer value is
+     */
+    protected boolean mute() {
+        return false;
+    }
+
     public void setEnable(boolean enable) {
         this.enable = enable;
         //
@@ -128,4 +158,28 @@ public abstract class Channel<T extends Sequencer> implements Component {
             this.sequencer.reset();
         }
     }
+
+    @Override
+    public void save(ByteBuffer buffer) {
+        putBool(buffer, this.enable);
+        this.lengthCounter.save(buffer);
+        if (this.timer != null) {
+            this.timer.save(buffer);
+        }
+        if (this.sequencer != null) {
+            this.sequencer.save(buffer);
+        }
+    }
+
+    @Override
+    public void load(ByteBuffer buffer) {
+        this.enable = getBool(buffer);
+        this.lengthCounter.load(buffer);
+        if (this.timer != null) {
+            this.timer.load(buffer);
+        }
+        if (this.sequencer != null) {
+            this.sequencer.load(buffer);
+        }
+    }
 }
@@ -3,6 +3,11 @@ package cn.navclub.nes4j.bin.apu;
 import cn.navclub.nes4j.bin.apu.impl.timer.Divider;
 import cn.navclub.nes4j.bin.function.CycleDriver;
 
+import java.nio.ByteBuffer;
+
+import static cn.navclub.nes4j.bin.util.BinUtil.getBool;
+import static cn.navclub.nes4j.bin.util.BinUtil.putBool;
+
 /**
  * <p>
  * In a synthesizer, an envelope is the way a sound's parameter changes over time. The NES APU has an envelope generator
@@ -129,4 +134,22 @@ public class Envelope implements CycleDriver {
     public boolean shareFBit() {
         return this.cflag || !this.loop;
     }
+
+    public void save(ByteBuffer buffer) {
+        this.divider.save(buffer);
+        buffer.putInt(this.counter);
+        buffer.putInt(this.constant);
+        putBool(buffer, this.loop);
+        putBool(buffer, this.cflag);
+        putBool(buffer, this.startFlag);
+    }
+
+    public void load(ByteBuffer buffer) {
+        this.divider.load(buffer);
+        this.counter = buffer.getInt();
+        this.constant = buffer.getInt();
+        this.loop = getBool(buffer);
+        this.cflag = getBool(buffer);
+        this.startFlag = getBool(buffer);
+    }
 }
@@ -1,11 +1,16 @@
 package cn.navclub.nes4j.bin.apu;
 
+import cn.navclub.nes4j.bin.config.IRQSource;
 import cn.navclub.nes4j.bin.core.Component;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.nio.ByteBuffer;
 import java.util.function.Consumer;
 
+import static cn.navclub.nes4j.bin.util.BinUtil.getBool;
+import static cn.navclub.nes4j.bin.util.BinUtil.putBool;
+
 /**
  * <p>
  * The <b>NES APU frame counter</b> (or <b>frame sequencer</b>) generates low-frequency clocks for the channels
@@ -34,7 +39,6 @@ public class FrameCounter implements Component {
      * (which also returns its old status) or by setting the interrupt inhibit flag.
      * </p>
      */
-    @Setter
     @Getter
     private boolean interrupt;
     //IRQ is disable
@@ -101,7 +105,7 @@ public class FrameCounter implements Component {
         //Interrupt inhibit flag. If set, the frame interrupt flag is cleared, otherwise it is unaffected.
         this.inhibit = (b & 0x40) == 0x40;
         if (this.inhibit) {
-            this.interrupt = false;
+            this.setInterrupt(false);
         }
         //
         // If the write occurs during an APU cycle, the effects occur 3 CPU cycles after the $4017 write cycle,
@@ -133,13 +137,44 @@ public class FrameCounter implements Component {
             // CPU's IRQ line is asserted.
             //
             if (this.index == 3 && this.mode == 0 && !this.inhibit) {
-                this.interrupt = true;
-                this.apu.fireIRQ();
+                this.setInterrupt(true);
             }
 
         }
     }
 
+    public void setInterrupt(boolean interrupt) {
+        this.interrupt = interrupt;
+        this.apu.setIRQ(IRQSource.FRAME_COUNTER, interrupt);
+    }
+
+    /**
+     * Cpu cycles until next sequencer step
+     *
+     * @return cpu cycles
+     */
+    public long nextEvent() {
+        var span = this.sequencers[this.mode][this.index] - this.cycle;
+        var step = span > 0 ? span : Integer.MAX_VALUE;
+        //Old sequence still step until $4017 write delay expire
+        if (this.delay > 0) {
+            return Math.min(this.delay, step);
+        }
+        return step;
+    }
+
+    /**
+     * Advance {@code n} cpu cycles in bulk,must less than {@link #nextEvent()}
+     *
+     * @param n Cpu cycles
+     */
+    public void skip(int n) {
+        this.cycle += n;
+        if (this.delay > 0) {
+            this.delay -= n;
+        }
+    }
+
     @Override
     public void reset() {
         this.mode = 0;
@@ -149,4 +184,24 @@ public class FrameCounter implements Component {
         this.inhibit = false;
         this.interrupt = false;
     }
+
+    @Override
+    public void save(ByteBuffer buffer) {
+        putBool(buffer, this.interrupt);
+        putBool(buffer, this.inhibit);
+        buffer.putInt(this.mode);
+        buffer.putInt(this.cycle);
+        buffer.putInt(this.index);
+        buffer.putInt(this.delay);
+    }
+
+    @Override
+    public void load(ByteBuffer buffer) {
+        this.interrupt = getBool(buffer);
+        this.inhibit = getBool(buffer);
+        this.mode = buffer.getInt();
+        this.cycle = buffer.getInt();
+        this.index = buffer.getInt();
+        this.delay = buffer.getInt();
+    }
 }
@@ -3,6 +3,10 @@ package cn.navclub.nes4j.bin.apu;
 import cn.navclub.nes4j.bin.function.CycleDriver;
 import lombok.Data;
 
+import java.nio.ByteBuffer;
+
+import static cn.navclub.nes4j.bin.util.BinUtil.getBool;
+import static cn.navclub.nes4j.bin.util.BinUtil.putBool;
 import static cn.navclub.nes4j.bin.util.BinUtil.uint8;
 
 @Data
@@ -76,7 +80,6 @@ public class LengthCounter implements CycleDriver {
         this.counter = LOOKUP_TABLE[uint8(b) >> 3];
     }
 
-
     public int stateVal() {
         return this.counter > 0 ? 1 : 0;
     }
@@ -93,4 +96,14 @@ public class LengthCounter implements CycleDriver {
     public boolean silence() {
         return this.counter == 0 && !this.halt;
     }
+
+    public void save(ByteBuffer buffer) {
+        buffer.putInt(this.counter);
+        putBool(buffer, this.halt);
+    }
+
+    public void load(ByteBuffer buffer) {
+        this.counter = buffer.getInt();
+        this.halt = getBool(buffer);
+    }
 }
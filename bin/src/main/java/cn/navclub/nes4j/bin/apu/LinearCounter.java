@@ -4,6 +4,11 @@ import cn.navclub.nes4j.bin.function.CycleDriver;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.nio.ByteBuffer;
+
+import static cn.navclub.nes4j.bin.util.BinUtil.getBool;
+import static cn.navclub.nes4j.bin.util.BinUtil.putBool;
+
 public class LinearCounter implements CycleDriver {
     @Getter
     private int counter;
@@ -55,4 +60,18 @@ public class LinearCounter implements CycleDriver {
         this.control = false;
         this.reloadValue = 0;
     }
+
+    public void save(ByteBuffer buffer) {
+        buffer.putInt(this.counter);
+        putBool(buffer, this.halt);
+        putBool(buffer, this.control);
+        buffer.putInt(this.reloadValue);
+    }
+
+    public void load(ByteBuffer buffer) {
+        this.counter = buffer.getInt();
+        this.halt = getBool(buffer);
+        this.control = getBool(buffer);
+        this.reloadValue = buffer.getInt();
+    }
 }
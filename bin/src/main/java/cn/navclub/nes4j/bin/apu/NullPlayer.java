@@ -0,0 +1,14 @@
+package cn.navclub.nes4j.bin.apu;
+
+/**
+ * Player which accept any format and discard all samples, for headless run which still want audio synthesis
+ * (benchmark,capture...) without an audio device.
+ *
+ * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
+ */
+public class NullPlayer implements Player {
+    @Override
+    public void output(SampleBlock block) {
+
+    }
+}
@@ -1,15 +1,38 @@
 package cn.navclub.nes4j.bin.apu;
 
+import cn.navclub.nes4j.bin.config.SampleEncoding;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.ServiceLoader;
+
 /**
+ * Audio player SPI.
+ * <p>
+ * Player was discovered by {@link ServiceLoader}(module {@code provides} or {@code META-INF/services}) and must
+ * have a public no-arg constructor. Before first sample {@link #open(SampleFormat)} negotiate sample format,after
+ * that apu deliver a whole {@link SampleBlock} every synthesis block(about a video frame).
+ * </p>
+ *
  * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
  */
 public interface Player {
     /**
-     * When apu component product a sample will call this method
+     * Negotiate sample format and open audio device,called once before first block.
+     *
+     * @param preferred Format apu prefer({@link SampleEncoding#PCM_S16} mono at configured sample rate)
+     * @return Format player accept,apu synthesis and convert samples into it
+     */
+    default SampleFormat open(SampleFormat preferred) {
+        return preferred;
+    }
+
+    /**
+     * When apu component finish a synthesis block will call this method
      *
-     * @param sample Audio sample
+     * @param block Sample block(only valid during this call)
      */
-    void output(byte sample);
+    void output(SampleBlock block);
 
     /**
      * When game was close will call this method release resource
@@ -23,11 +46,36 @@ public interface Player {
 
     }
 
-    static Player newInstance(Class<? extends Player> clazz, Object... args) {
+    static Player newInstance(Class<? extends Player> clazz) {
         try {
-            return clazz.getConstructor(Integer.class).newInstance(args);
+            return clazz.getConstructor().newInstance();
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
     }
+
+    /**
+     * Find player provider by name(provider class simple name,ignore case)
+     *
+     * @param name Player name such as {@code NullPlayer}
+     * @return Player provider
+     */
+    static Optional<ServiceLoader.Provider<Player>> lookup(String name) {
+        return ServiceLoader
+                .load(Player.class)
+                .stream()
+                .filter(it -> it.type().getSimpleName().equalsIgnoreCase(name))
+                .findFirst();
+    }
+
+    /**
+     * All available player names
+     */
+    static List<String> providers() {
+        return ServiceLoader
+                .load(Player.class)
+                .stream()
+                .map(it -> it.type().getSimpleName())
+                .toList();
+    }
 }
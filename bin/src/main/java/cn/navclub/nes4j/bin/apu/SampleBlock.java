@@ -0,0 +1,92 @@
+package cn.navclub.nes4j.bin.apu;
+
+import cn.navclub.nes4j.bin.config.SampleEncoding;
+import lombok.Getter;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A block of samples(about a video frame) which apu deliver to {@link Player} in one call.
+ * <p>
+ * Block was allocated once with negotiated {@link SampleFormat} and reused, only the array match format encoding
+ * was allocated(the others are {@code null}). Multi channel samples are interleaved. Content is only valid during
+ * {@link Player#output(SampleBlock)},player must copy samples it want to keep.
+ * </p>
+ *
+ * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
+ */
+@Getter
+public class SampleBlock {
+    private final SampleFormat format;
+    //PCM_U8 samples(direct buffer,position 0 limit sample number)
+    private final ByteBuffer bytes;
+    //PCM_S16 samples
+    private final short[] shorts;
+    //PCM_F32 samples
+    private final float[] floats;
+    //Sample frame number of this block
+    private int frames;
+
+    /**
+     * @param format   Sample format
+     * @param capacity Max sample frames of a block
+     */
+    public SampleBlock(SampleFormat format, int capacity) {
+        var length = capacity * format.channels();
+        this.format = format;
+        var encoding = format.encoding();
+        this.bytes = encoding == SampleEncoding.PCM_U8 ? ByteBuffer.allocateDirect(capacity * format.frameBytes()) : null;
+        this.shorts = encoding == SampleEncoding.PCM_S16 ? new short[length] : null;
+        this.floats = encoding == SampleEncoding.PCM_F32 ? new float[length] : null;
+    }
+
+    /**
+     * Sample number(frames * channels)
+     */
+    public int length() {
+        return this.frames * this.format.channels();
+    }
+
+    /**
+     * Convert mixer amplitude into block
+     *
+     * @param amplitude Mixer amplitude(0-65535)
+     * @param count     Sample frame number
+     */
+    void fill(int[] amplitude, int count) {
+        var channels = this.format.channels();
+        switch (this.format.encoding()) {
+            case PCM_U8 -> {
+                this.bytes.clear();
+                for (int i = 0; i < count; i++) {
+                    var value = (byte) (clamp(amplitude[i]) >> 8);
+                    for (int j = 0; j < channels; j++) {
+                        this.bytes.put(value);
+                    }
+                }
+                this.bytes.flip();
+            }
+            case PCM_S16 -> {
+                for (int i = 0, k = 0; i < count; i++) {
+                    var value = (short) (clamp(amplitude[i]) - 0x8000);
+                    for (int j = 0; j < channels; j++) {
+                        this.shorts[k++] = value;
+                    }
+                }
+            }
+            case PCM_F32 -> {
+                for (int i = 0, k = 0; i < count; i++) {
+                    var value = (clamp(amplitude[i]) - 0x8000) / (float) 0x8000;
+                    for (int j = 0; j < channels; j++) {
+                        this.floats[k++] = value;
+                    }
+                }
+            }
+        }
+        this.frames = count;
+    }
+
+    private static int clamp(int value) {
+        return Math.min(Math.max(value, 0), 0xffff);
+    }
+}
@@ -0,0 +1,30 @@
+package cn.navclub.nes4j.bin.apu;
+
+import cn.navclub.nes4j.bin.config.SampleEncoding;
+
+import java.util.Objects;
+
+/**
+ * @param sampleRate Sample frames per second
+ * @param encoding   Sample encoding
+ * @param channels   1(mono) or 2(stereo,interleaved and both channel carry same signal)
+ * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
+ */
+public record SampleFormat(int sampleRate, SampleEncoding encoding, int channels) {
+    public SampleFormat {
+        Objects.requireNonNull(encoding, "Sample encoding must not be null.");
+        if (sampleRate <= 0) {
+            throw new IllegalArgumentException("Illegal sample rate:" + sampleRate);
+        }
+        if (channels != 1 && channels != 2) {
+            throw new IllegalArgumentException("Only mono or stereo supported:" + channels);
+        }
+    }
+
+    /**
+     * Byte size of a sample frame(all channels)
+     */
+    public int frameBytes() {
+        return this.encoding.bytes * this.channels;
+    }
+}
@@ -2,6 +2,8 @@ package cn.navclub.nes4j.bin.apu;
 
 import cn.navclub.nes4j.bin.function.CycleDriver;
 
+import java.nio.ByteBuffer;
+
 /**
  * A sequencer continuously loops over a sequence of values or events. When clocked, the next item in the sequence
  * is generated. In this APU documentation, clocking a sequencer usually means either advancing to the next step in
@@ -24,4 +26,29 @@ public interface Sequencer extends CycleDriver {
      * Reset Sequencer
      */
     void reset();
+
+    /**
+     * Clock sequencer {@code n} times in bulk
+     *
+     * @param n Clock times
+     */
+    default void skip(int n) {
+        for (int i = 0; i < n; i++) {
+            this.tick();
+        }
+    }
+
+    /**
+     * Snapshot sequencer status into buffer
+     *
+     * @param buffer Save state buffer
+     */
+    void save(ByteBuffer buffer);
+
+    /**
+     * Recovery sequencer status from buffer
+     *
+     * @param buffer Save state buffer
+     */
+    void load(ByteBuffer buffer);
 }
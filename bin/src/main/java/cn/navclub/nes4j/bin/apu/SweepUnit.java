@@ -5,6 +5,11 @@ import cn.navclub.nes4j.bin.apu.impl.timer.Divider;
 import cn.navclub.nes4j.bin.function.CycleDriver;
 import lombok.Getter;
 
+import java.nio.ByteBuffer;
+
+import static cn.navclub.nes4j.bin.util.BinUtil.getBool;
+import static cn.navclub.nes4j.bin.util.BinUtil.putBool;
+
 /**
  * <p>An NES APU sweep unit can be made to periodically adjust a pulse channel's period up or down.</p>
  * <p>Each <a href="https://www.nesdev.org/wiki/APU_Sweep">sweep unit</a> contains the following:</p>
@@ -116,4 +121,24 @@ public class SweepUnit implements CycleDriver {
         this.divider.period = 0;
         this.divider.counter = 0;
     }
+
+    public void save(ByteBuffer buffer) {
+        this.divider.save(buffer);
+        buffer.putInt(this.result);
+        buffer.putInt(this.shift);
+        putBool(buffer, this.reloadFlag);
+        putBool(buffer, this.enable);
+        putBool(buffer, this.silence);
+        putBool(buffer, this.negative);
+    }
+
+    public void load(ByteBuffer buffer) {
+        this.divider.load(buffer);
+        this.result = buffer.getInt();
+        this.shift = buffer.getInt();
+        this.reloadFlag = getBool(buffer);
+        this.enable = getBool(buffer);
+        this.silence = getBool(buffer);
+        this.negative = getBool(buffer);
+    }
 }
@@ -5,6 +5,8 @@ import cn.navclub.nes4j.bin.function.CycleDriver;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.nio.ByteBuffer;
+
 /**
  * A timer is used in each of the five channels to control the sound frequency. It contains a divider which
  * is clocked by the CPU clock. The triangle channel's timer is clocked on every CPU cycle, but the pulse, noise,
@@ -40,4 +42,45 @@ public class Timer<T extends Sequencer> implements CycleDriver {
             }
         }
     }
+
+    /**
+     * Ticks from now on which only count down(sequencer not clocked)
+     *
+     * @return Tick number
+     */
+    public int idle() {
+        return this.counter < 0 ? Integer.MAX_VALUE : this.counter;
+    }
+
+    /**
+     * Advance {@code n} ticks in bulk,sequencer was clocked as many times as it would be by {@link #tick()}
+     *
+     * @param n Tick number
+     */
+    public void skip(int n) {
+        if (this.counter < 0) {
+            return;
+        }
+        if (n <= this.counter) {
+            this.counter -= n;
+            return;
+        }
+        //First reload happen when counter reach 0,after that reload every period + 1 ticks
+        n -= this.counter + 1;
+        var length = this.period + 1;
+        if (this.sequencer != null) {
+            this.sequencer.skip(1 + n / length);
+        }
+        this.counter = this.period - n % length;
+    }
+
+    public void save(ByteBuffer buffer) {
+        buffer.putInt(this.counter);
+        buffer.putInt(this.period);
+    }
+
+    public void load(ByteBuffer buffer) {
+        this.counter = buffer.getInt();
+        this.period = buffer.getInt();
+    }
 }
@@ -3,9 +3,14 @@ package cn.navclub.nes4j.bin.apu.impl;
 import cn.navclub.nes4j.bin.apu.APU;
 import cn.navclub.nes4j.bin.apu.Channel;
 import cn.navclub.nes4j.bin.apu.Sequencer;
+import cn.navclub.nes4j.bin.config.IRQSource;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.nio.ByteBuffer;
+
+import static cn.navclub.nes4j.bin.util.BinUtil.getBool;
+import static cn.navclub.nes4j.bin.util.BinUtil.putBool;
 import static cn.navclub.nes4j.bin.util.BinUtil.uint8;
 
 /**
@@ -80,7 +85,6 @@ public class DMChannel extends Channel<Sequencer> {
     //$4011: delta counter
     private int deltaCounter;
     //$4015: DMC/IRQ status
-    @Setter
     @Getter
     private boolean IRQFlag;
     private boolean silence;
@@ -120,7 +124,7 @@ public class DMChannel extends Channel<Sequencer> {
             //
             this.frequency = (FREQ_TABLE[c & 0x0f]);
             if (this.mode != PlaybackMode._10) {
-                this.IRQFlag = false;
+                this.setIRQFlag(false);
             }
         }
         //  $4011 - Delta counter load register
@@ -338,11 +342,60 @@ public class DMChannel extends Channel<Sequencer> {
             if (this.mode == PlaybackMode._X1) {
                 this.loopReader();
             } else if (this.mode == PlaybackMode._10) {
-                this.IRQFlag = true;
+                this.setIRQFlag(true);
             }
         }
     }
 
+    /**
+     * Cpu cycles until next memory fetch
+     *
+     * @return cpu cycles
+     */
+    public long nextEvent() {
+        if (!this.enable) {
+            return Integer.MAX_VALUE;
+        }
+        if (this.bitCount == 0) {
+            return this.lCounter == 0 ? Integer.MAX_VALUE : 1;
+        }
+        return this.downCounter + 1;
+    }
+
+    /**
+     * Cpu cycles from now on which only count down rate timer(no output unit clock,no sample fetch and output not
+     * change)
+     */
+    @Override
+    public int idle() {
+        if (!this.enable) {
+            return Integer.MAX_VALUE;
+        }
+        //Output unit idle(sample buffer empty) only when nothing left to fetch and output already latched
+        if (this.bitCount == 0 && !(this.silence && this.lCounter == 0 && this.sample == this.deltaCounter)) {
+            return 0;
+        }
+        return this.silence ? Integer.MAX_VALUE : this.downCounter;
+    }
+
+    @Override
+    public void skip(int n) {
+        if (!this.enable) {
+            return;
+        }
+        if (n <= this.downCounter) {
+            this.downCounter -= n;
+            return;
+        }
+        n -= this.downCounter + 1;
+        this.downCounter = this.frequency - n % (this.frequency + 1);
+    }
+
+    public void setIRQFlag(boolean IRQFlag) {
+        this.IRQFlag = IRQFlag;
+        this.apu.setIRQ(IRQSource.DMC, IRQFlag);
+    }
+
     /**
      * When a sample is (re)started, the current address is set to the sample address,
      * and bytes remaining is set to the sample length.
@@ -385,5 +438,41 @@ public class DMChannel extends Channel<Sequencer> {
         return this.lCounter == 0 ? 0 : 1 << 4;
     }
 
+    @Override
+    public void save(ByteBuffer buffer) {
+        super.save(buffer);
+        buffer.put(this.sample);
+        buffer.put(this.bitCount);
+        buffer.put(this.shiftReg);
+        buffer.putInt(this.sampleLength);
+        buffer.putInt(this.sampleAddress);
+        buffer.putInt(this.lCounter);
+        buffer.putInt(this.currentAddress);
+        buffer.put(this.dacLSB);
+        buffer.putInt(this.frequency);
+        buffer.putInt(this.deltaCounter);
+        putBool(buffer, this.IRQFlag);
+        putBool(buffer, this.silence);
+        buffer.putInt(this.downCounter);
+        buffer.put((byte) this.mode.ordinal());
+    }
 
+    @Override
+    public void load(ByteBuffer buffer) {
+        super.load(buffer);
+        this.sample = buffer.get();
+        this.bitCount = buffer.get();
+        this.shiftReg = buffer.get();
+        this.sampleLength = buffer.getInt();
+        this.sampleAddress = buffer.getInt();
+        this.lCounter = buffer.getInt();
+        this.currentAddress = buffer.getInt();
+        this.dacLSB = buffer.get();
+        this.frequency = buffer.getInt();
+        this.deltaCounter = buffer.getInt();
+        this.IRQFlag = getBool(buffer);
+        this.silence = getBool(buffer);
+        this.downCounter = buffer.getInt();
+        this.mode = PlaybackMode.values()[buffer.get()];
+    }
 }
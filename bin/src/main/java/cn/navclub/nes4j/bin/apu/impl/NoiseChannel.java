@@ -6,6 +6,8 @@ import cn.navclub.nes4j.bin.apu.impl.sequencer.NoiseSequencer;
 import cn.navclub.nes4j.bin.apu.APU;
 import lombok.Getter;
 
+import java.nio.ByteBuffer;
+
 /**
  * <h1>Noise channel</h1>
  * <pre>
@@ -112,6 +114,11 @@ public class NoiseChannel extends Channel<NoiseSequencer> {
         return this.envelope.getVolume();
     }
 
+    @Override
+    protected boolean mute() {
+        return !this.enable || this.lengthCounter.silence() || this.envelope.getVolume() == 0;
+    }
+
     @Override
     public int readState() {
         return this.lengthCounter.stateVal() << 3;
@@ -122,4 +129,16 @@ public class NoiseChannel extends Channel<NoiseSequencer> {
         super.reset();
         this.envelope.reset();
     }
+
+    @Override
+    public void save(ByteBuffer buffer) {
+        super.save(buffer);
+        this.envelope.save(buffer);
+    }
+
+    @Override
+    public void load(ByteBuffer buffer) {
+        super.load(buffer);
+        this.envelope.load(buffer);
+    }
 }
@@ -7,6 +7,8 @@ import cn.navclub.nes4j.bin.apu.impl.sequencer.SeqSequencer;
 import cn.navclub.nes4j.bin.apu.APU;
 import lombok.Getter;
 
+import java.nio.ByteBuffer;
+
 /**
  * <p>
  * Each of the two <b>NES APU pulse</b> (square) wave channels generate a pulse wave with variable duty.
@@ -105,6 +107,14 @@ public class PulseChannel extends Channel<SeqSequencer> {
         return this.envelope.getVolume();
     }
 
+    @Override
+    protected boolean mute() {
+        return !this.enable
+                || this.lengthCounter.silence()
+                || this.sweepUnit.isSilence()
+                || this.envelope.getVolume() == 0;
+    }
+
     @Override
     public void lengthTick() {
         super.lengthTick();
@@ -122,4 +132,18 @@ public class PulseChannel extends Channel<SeqSequencer> {
         this.envelope.reset();
         this.sweepUnit.reset();
     }
+
+    @Override
+    public void save(ByteBuffer buffer) {
+        super.save(buffer);
+        this.envelope.save(buffer);
+        this.sweepUnit.save(buffer);
+    }
+
+    @Override
+    public void load(ByteBuffer buffer) {
+        super.load(buffer);
+        this.envelope.load(buffer);
+        this.sweepUnit.load(buffer);
+    }
 }
@@ -7,6 +7,8 @@ import cn.navclub.nes4j.bin.apu.APU;
 import cn.navclub.nes4j.bin.apu.impl.timer.TriangleTimer;
 import lombok.Getter;
 
+import java.nio.ByteBuffer;
+
 /**
  * <p>
  * The NES APU triangle channel generates a pseudo-triangle wave. It has no volume control; the waveform is either
@@ -84,4 +86,16 @@ public class TriangleChannel extends Channel<TriangleSequencer> {
         super.reset();
         this.linearCounter.reset();
     }
+
+    @Override
+    public void save(ByteBuffer buffer) {
+        super.save(buffer);
+        this.linearCounter.save(buffer);
+    }
+
+    @Override
+    public void load(ByteBuffer buffer) {
+        super.load(buffer);
+        this.linearCounter.load(buffer);
+    }
 }
@@ -3,6 +3,8 @@ package cn.navclub.nes4j.bin.apu.impl.sequencer;
 import cn.navclub.nes4j.bin.apu.Sequencer;
 import lombok.Setter;
 
+import java.nio.ByteBuffer;
+
 /**
  * <pre>
  *
@@ -68,4 +70,16 @@ public class NoiseSequencer implements Sequencer {
         //On power-up, the shift register is loaded with the value 1.
         this.sequence = 1;
     }
+
+    @Override
+    public void save(ByteBuffer buffer) {
+        buffer.putInt(this.mode);
+        buffer.putInt(this.sequence);
+    }
+
+    @Override
+    public void load(ByteBuffer buffer) {
+        this.mode = buffer.getInt();
+        this.sequence = buffer.getInt();
+    }
 }
@@ -3,6 +3,8 @@ package cn.navclub.nes4j.bin.apu.impl.sequencer;
 import cn.navclub.nes4j.bin.apu.Sequencer;
 import lombok.Setter;
 
+import java.nio.ByteBuffer;
+
 /**
  * <b>Sequencer behavior</b>
  * <p>
@@ -46,6 +48,11 @@ public class SeqSequencer implements Sequencer {
         this.index = (this.index + 1) % 8;
     }
 
+    @Override
+    public void skip(int n) {
+        this.index = (this.index + n) % 8;
+    }
+
     @Override
     public int value() {
         return this.sequences[this.duty][this.index];
@@ -56,4 +63,16 @@ public class SeqSequencer implements Sequencer {
         this.duty = 0;
         this.index = 0;
     }
+
+    @Override
+    public void save(ByteBuffer buffer) {
+        buffer.putInt(this.duty);
+        buffer.putInt(this.index);
+    }
+
+    @Override
+    public void load(ByteBuffer buffer) {
+        this.duty = buffer.getInt();
+        this.index = buffer.getInt();
+    }
 }
@@ -2,6 +2,8 @@ package cn.navclub.nes4j.bin.apu.impl.sequencer;
 
 import cn.navclub.nes4j.bin.apu.Sequencer;
 
+import java.nio.ByteBuffer;
+
 public class TriangleSequencer implements Sequencer {
     private final int[] sequencer = new int[]{
             0x0f,
@@ -50,8 +52,23 @@ public class TriangleSequencer implements Sequencer {
         this.index = (this.index + 1) % sequencer.length;
     }
 
+    @Override
+    public void skip(int n) {
+        this.index = (this.index + n) % sequencer.length;
+    }
+
     @Override
     public void reset() {
         this.index = 0;
     }
+
+    @Override
+    public void save(ByteBuffer buffer) {
+        buffer.putInt(this.index);
+    }
+
+    @Override
+    public void load(ByteBuffer buffer) {
+        this.index = buffer.getInt();
+    }
 }
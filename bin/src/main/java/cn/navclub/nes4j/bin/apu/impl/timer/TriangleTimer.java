@@ -29,13 +29,41 @@ public class TriangleTimer extends Timer<TriangleSequencer> {
             // When the timer generates a clock and the Length Counter and Linear Counter both
             // have a non-zero count, the sequencer is clocked.
             //
-            if (this.counter == 0) {
-                var linearCounter = this.channel.getLinearCounter();
-                var lengthCounter = this.channel.getLengthCounter();
-                if (channel.isEnable() && lengthCounter.getCounter() != 0 && linearCounter.getCounter() != 0) {
-                    this.sequencer.tick();
-                }
+            if (this.counter == 0 && this.gate()) {
+                this.sequencer.tick();
             }
         }
     }
+
+    private boolean gate() {
+        var linearCounter = this.channel.getLinearCounter();
+        var lengthCounter = this.channel.getLengthCounter();
+        return channel.isEnable() && lengthCounter.getCounter() != 0 && linearCounter.getCounter() != 0;
+    }
+
+    @Override
+    public int idle() {
+        //Sequencer is clocked when counter count down to 0 rather than on reload
+        if (this.counter < 0 || !this.gate()) {
+            return Integer.MAX_VALUE;
+        }
+        if (this.counter > 0) {
+            return this.counter - 1;
+        }
+        return this.period == 0 ? Integer.MAX_VALUE : this.period;
+    }
+
+    @Override
+    public void skip(int n) {
+        if (this.counter < 0) {
+            return;
+        }
+        if (n <= this.counter) {
+            this.counter -= n;
+            return;
+        }
+        //From 0,reload to period then count down to 0 again every period + 1 ticks
+        var remain = (n - this.counter) % (this.period + 1);
+        this.counter = remain == 0 ? 0 : this.period - remain + 1;
+    }
 }
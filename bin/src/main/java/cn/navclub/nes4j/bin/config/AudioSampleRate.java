@@ -12,12 +12,9 @@ public enum AudioSampleRate {
     HZ48000(48000),
     HZ96000(96000);
 
-    public final int value;
     public final int sample;
 
     AudioSampleRate(int sample) {
         this.sample = sample;
-        // 1.79 MHz / sample = value
-        this.value = Math.floorDiv(1790000, sample);
     }
 }
@@ -0,0 +1,20 @@
+package cn.navclub.nes4j.bin.config;
+
+/**
+ * IRQ line source.Every source own one bit of cpu IRQ line,the line stay asserted(level triggered) until all
+ * sources was acknowledged.
+ *
+ * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
+ */
+public enum IRQSource {
+    //APU frame counter interrupt,acknowledged by read $4015 or set $4017 inhibit flag
+    FRAME_COUNTER,
+    //APU DMC sample end interrupt,acknowledged by write $4015 or clear $4010 IRQ enable flag
+    DMC,
+    //Cartridge mapper interrupt(MMC3 scanline counter...),acknowledged by mapper register write
+    MAPPER;
+
+    public int mask() {
+        return 1 << this.ordinal();
+    }
+}
@@ -31,7 +31,7 @@ public class Register<T extends Enum<?>> {
      * 清除某个标识位
      */
     public final void clear(T instance) {
-        this.bits &= (byte) (0xff - (int) (Math.pow(2, instance.ordinal())));
+        this.bits &= (byte) ~(1 << instance.ordinal());
     }
 
     /**
@@ -0,0 +1,18 @@
+package cn.navclub.nes4j.bin.config;
+
+/**
+ * Enum variable ppu render mode
+ *
+ * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
+ */
+public enum RenderMode {
+    /**
+     * Dot accurate render,every ppu dot step once.
+     */
+    DOT,
+    /**
+     * Draw a whole scanline at once when no ppu register was touched during that scanline,otherwise fall back
+     * to {@link #DOT}.
+     */
+    SCANLINE
+}
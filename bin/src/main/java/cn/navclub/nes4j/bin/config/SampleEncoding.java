@@ -0,0 +1,21 @@
+package cn.navclub.nes4j.bin.config;
+
+/**
+ * Audio sample encoding which player and apu negotiate
+ *
+ * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
+ */
+public enum SampleEncoding {
+    //Unsigned 8 bit pcm(silence is 0x80),delivered as ByteBuffer
+    PCM_U8(1),
+    //Signed 16 bit pcm,delivered as short[]
+    PCM_S16(2),
+    //32 bit float pcm in [-1,1],delivered as float[]
+    PCM_F32(4);
+
+    public final int bytes;
+
+    SampleEncoding(int bytes) {
+        this.bytes = bytes;
+    }
+}
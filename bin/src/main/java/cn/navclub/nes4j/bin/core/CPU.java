@@ -2,18 +2,19 @@ package cn.navclub.nes4j.bin.core;
 
 import cn.navclub.nes4j.bin.NesConsole;
 import cn.navclub.nes4j.bin.config.*;
+import cn.navclub.nes4j.bin.core.MemoryBusAdapter.Operand;
 import cn.navclub.nes4j.bin.core.register.CPUStatus;
+import cn.navclub.nes4j.bin.debug.CPUTrace;
 import cn.navclub.nes4j.bin.logging.LoggerDelegate;
 import cn.navclub.nes4j.bin.logging.LoggerFactory;
 import cn.navclub.nes4j.bin.util.BinUtil;
 import lombok.Getter;
+import lombok.Setter;
 
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.regex.Pattern;
+import java.nio.ByteBuffer;
 
 import static cn.navclub.nes4j.bin.util.BinUtil.*;
 
@@ -23,11 +24,14 @@ import static cn.navclub.nes4j.bin.util.BinUtil.*;
  * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
  */
 public class CPU {
-    private final static Map<Byte, WS6502> MWS6502;
+    //Opcode indexed instruction table,unknown opcode slot is null
+    private final static WS6502[] MWS6502;
+    //Opcode indexed instruction handler(address mode already bound),stateless so that all cpu share it
+    private final static Handler[] HANDLERS;
     private final static LoggerDelegate logger = LoggerFactory.logger(CPU.class);
 
     static {
-        MWS6502 = new HashMap<>();
+        MWS6502 = new WS6502[256];
         try (var is = CPU.class.getResourceAsStream("6502.txt");
              var buffer = new BufferedReader(new InputStreamReader(is))) {
             String line;
@@ -51,14 +55,20 @@ public class CPU {
                 var opec = Byte.parseByte(arr[2]);
                 var cycle = Integer.parseInt(arr[3]);
                 var size = Integer.parseInt(arr[4]);
-                if (MWS6502.containsKey(opec)) {
+                if (MWS6502[uint8(opec)] != null) {
                     logger.warning("Repeat define opencode 0x{} in line {}?", BinUtil.toBinStr(opec), lineNum);
                 }
-                MWS6502.put(opec, new WS6502(opec, size, cycle, addrMode, ins));
+                MWS6502[uint8(opec)] = new WS6502(opec, size, cycle, addrMode, ins);
             }
         } catch (Exception e) {
             throw new RuntimeException("6502 cpu instruction init fail:%s".formatted(e.getMessage()));
         }
+        HANDLERS = new Handler[MWS6502.length];
+        for (int i = 0; i < MWS6502.length; i++) {
+            if (MWS6502[i] != null) {
+                HANDLERS[i] = bind(MWS6502[i]);
+            }
+        }
     }
 
 
@@ -68,6 +78,9 @@ public class CPU {
     private static final int PC_RESET = 0xfffc;
     //Stack reset offset
     private static final int STACK_RESET = 0xfd;
+    //Status bits only exist in the copy pushed to stack
+    private static final int EMPTY_FLAG = 1 << ICPUStatus.EMPTY.ordinal();
+    private static final int BREAK_FLAG = 1 << ICPUStatus.BREAK_COMMAND.ordinal();
 
     //Accumulator register
     @Getter
@@ -89,6 +102,9 @@ public class CPU {
     private long instructions;
     private final CPUStatus status;
     private final MemoryBusAdapter bus;
+    //Execution trace recorder,null mean trace disable
+    @Setter
+    private CPUTrace trace;
 
     public CPU(NesConsole console) {
         this.status = new CPUStatus();
@@ -135,8 +151,8 @@ public class CPU {
     }
 
 
-    private void LDAImpl(AddressMode mode) {
-        var address = this.bus.getAbsAddr(mode);
+    private void LDAImpl(Operand operand) {
+        var address = operand.address(this.bus);
         var value = this.bus.ReadU8(address);
         this.raUpdate(value);
     }
@@ -161,8 +177,8 @@ public class CPU {
     /**
      * Or and not operator
      */
-    private void LogicImpl(Instruction instruction, AddressMode addressMode) {
-        var address = this.bus.getAbsAddr(addressMode);
+    private void LogicImpl(Instruction instruction, Operand operand) {
+        var address = operand.address(this.bus);
         var a = this.ra;
         var b = this.bus.ReadU8(address);
         var c = switch (instruction) {
@@ -174,31 +190,32 @@ public class CPU {
         this.raUpdate(c);
     }
 
-    private void LSRImpl(AddressMode mode) {
+    private void LSRImpl(Operand operand) {
         var addr = 0;
-        var operand = mode == AddressMode.Accumulator
+        var accumulator = operand == null;
+        var value = accumulator
                 ? this.ra
-                : this.bus.ReadU8(addr = this.bus.getAbsAddr(mode));
+                : this.bus.ReadU8(addr = operand.address(this.bus));
 
-        this.status.update(ICPUStatus.CARRY, (operand & 1) == 1);
-        operand >>= 1;
-        if (mode == AddressMode.Accumulator) {
-            this.raUpdate(operand);
+        this.status.update(ICPUStatus.CARRY, (value & 1) == 1);
+        value >>= 1;
+        if (accumulator) {
+            this.raUpdate(value);
         } else {
-            this.bus.WriteU8(addr, operand);
-            this.NZUpdate(operand);
+            this.bus.WriteU8(addr, value);
+            this.NZUpdate(value);
         }
     }
 
-    private void ROLImpl(AddressMode mode) {
+    private void ROLImpl(Operand operand) {
         var bit = 0;
         var addr = 0;
         var value = 0;
-        var updateRA = (mode == AddressMode.Accumulator);
+        var updateRA = (operand == null);
         if (updateRA) {
             value = this.ra;
         } else {
-            addr = this.bus.getAbsAddr(mode);
+            addr = operand.address(this.bus);
             value = this.bus.ReadU8(addr);
         }
         bit = value >> 7;
@@ -213,12 +230,12 @@ public class CPU {
         }
     }
 
-    private void RORImpl(AddressMode mode) {
+    private void RORImpl(Operand operand) {
         var addr = 0;
         var value = this.ra;
-        var rora = mode == AddressMode.Accumulator;
+        var rora = operand == null;
         if (!rora) {
-            addr = this.bus.getAbsAddr(mode);
+            addr = operand.address(this.bus);
             value = this.bus.ReadU8(addr);
         }
         var oBit = value & 1;
@@ -233,14 +250,14 @@ public class CPU {
         }
     }
 
-    private void ASLImpl(AddressMode mode) {
+    private void ASLImpl(Operand operand) {
         int b;
-        var a = (mode == AddressMode.Accumulator);
+        var a = (operand == null);
         var address = -1;
         if (a) {
             b = this.ra;
         } else {
-            address = this.bus.getAbsAddr(mode);
+            address = operand.address(this.bus);
             b = this.bus.ReadU8(address);
         }
         //Check Carry flag
@@ -259,9 +276,7 @@ public class CPU {
         if (instruction == Instruction.PHA) {
             this.push(int8(this.ra));
         } else {
-            var flags = this.status.copy();
-            flags.set(ICPUStatus.BREAK_COMMAND, ICPUStatus.EMPTY);
-            this.push(flags.getBits());
+            this.push(int8(this.status.getBits() | BREAK_FLAG | EMPTY_FLAG));
         }
     }
 
@@ -276,13 +291,13 @@ public class CPU {
         }
     }
 
-    private void CMPImpl(Instruction instruction, AddressMode mode) {
+    private void CMPImpl(Instruction instruction, Operand operand) {
         var val = switch (instruction) {
             case CMP -> this.ra;
             case CPX -> this.rx;
             default -> this.ry;
         };
-        var address = this.bus.getAbsAddr(mode);
+        var address = operand.address(this.bus);
         var m = this.bus.ReadU8(address);
         //Set carry Flag
         this.status.update(ICPUStatus.CARRY, val >= m);
@@ -290,10 +305,10 @@ public class CPU {
         this.NZUpdate(u8sbc(val, m));
     }
 
-    private void INCImpl(Instruction instruction, AddressMode mode) {
+    private void INCImpl(Instruction instruction, Operand operand) {
         final int result;
         if (instruction == Instruction.INC) {
-            var address = this.bus.getAbsAddr(mode);
+            var address = operand.address(this.bus);
             var m = this.bus.ReadU8(address);
             result = u8add(m, 1);
             this.bus.WriteU8(address, result);
@@ -306,8 +321,8 @@ public class CPU {
     }
 
 
-    private void ADCImpl(AddressMode mode, boolean sbc) {
-        var addr = this.bus.getAbsAddr(mode);
+    private void ADCImpl(Operand operand, boolean sbc) {
+        var addr = operand.address(this.bus);
         var b = this.bus.read(addr);
         if (sbc) {
             /* The absolute value of a negative number may be larger than the size
@@ -325,8 +340,8 @@ public class CPU {
     }
 
 
-    private void LDXYImpl(Instruction instruction, AddressMode mode) {
-        var address = this.bus.getAbsAddr(mode);
+    private void LDXYImpl(Instruction instruction, Operand operand) {
+        var address = operand.address(this.bus);
         var data = this.bus.ReadU8(address);
         if (instruction == Instruction.LDX) {
             this.rx = data;
@@ -353,17 +368,17 @@ public class CPU {
         this.pc = jump;
     }
 
-    private void BITImpl(AddressMode mode) {
-        var value = this.bus.ReadU8(this.bus.getAbsAddr(mode));
+    private void BITImpl(Operand operand) {
+        var value = this.bus.ReadU8(operand.address(this.bus));
         this.status.update(ICPUStatus.ZERO, (this.ra & value) == 0);
         this.status.update(ICPUStatus.NEGATIVE, (value >> 7) == 1);
         this.status.update(ICPUStatus.OVERFLOW, (value >> 6) == 1);
     }
 
-    private void DEYImpl(Instruction instruction, AddressMode mode) {
+    private void DEYImpl(Instruction instruction, Operand operand) {
         var value = switch (instruction) {
             case DEC -> {
-                var address = this.bus.getAbsAddr(mode);
+                var address = operand.address(this.bus);
                 var b = u8sbc(this.bus.ReadU8(address), 1);
                 this.bus.WriteU8(address, b);
                 yield b;
@@ -381,8 +396,8 @@ public class CPU {
         this.pc = this.popInt();
     }
 
-    private void LASImpl(AddressMode mode) {
-        var addr = this.bus.getAbsAddr(mode);
+    private void LASImpl(Operand operand) {
+        var addr = operand.address(this.bus);
         var value = this.bus.ReadU8(addr);
         value = value & this.sp;
         this.rx = value;
@@ -390,29 +405,30 @@ public class CPU {
         this.raUpdate(value);
     }
 
-    private void LAXImpl(AddressMode mode) {
-        var addr = this.bus.getAbsAddr(mode);
+    private void LAXImpl(Operand operand) {
+        var addr = operand.address(this.bus);
         var value = this.bus.ReadU8(addr);
         this.raUpdate(value);
         this.rx = value;
     }
 
-    private void SAXImpl(AddressMode mode) {
+    private void SAXImpl(Operand operand) {
         var data = this.ra & this.rx;
-        var addr = this.bus.getAbsAddr(mode);
+        var addr = operand.address(this.bus);
         this.bus.WriteU8(addr, data);
     }
 
-    private void RRAImpl(AddressMode mode) {
-        this.RORImpl(mode);
-        this.ADCImpl(mode, false);
+    private void RRAImpl(Operand operand) {
+        this.RORImpl(operand);
+        this.ADCImpl(operand, false);
     }
 
-    private void ARRImpl(AddressMode mode) {
-        var addr = this.bus.getAbsAddr(mode);
+    private void ARRImpl(Operand operand) {
+        var addr = operand.address(this.bus);
         var b = this.bus.ReadU8(addr);
         this.raUpdate(b & this.ra);
-        this.RORImpl(AddressMode.Accumulator);
+        //Rotate accumulator
+        this.RORImpl(null);
         var result = this.ra;
         var b5 = (result >> 5 & 1);
         var b6 = (result >> 6 & 1);
@@ -421,8 +437,8 @@ public class CPU {
         this.NZUpdate(result);
     }
 
-    private void DCPImpl(AddressMode mode) {
-        var addr = this.bus.getAbsAddr(mode);
+    private void DCPImpl(Operand operand) {
+        var addr = operand.address(this.bus);
         var value = this.bus.ReadU8(addr);
         value = u8sbc(value, 1);
         this.bus.WriteU8(addr, value);
@@ -432,29 +448,29 @@ public class CPU {
         this.NZUpdate(u8sbc(this.ra, value));
     }
 
-    private void XAAImpl(AddressMode mode) {
+    private void XAAImpl(Operand operand) {
         this.raUpdate(this.rx);
-        var addr = this.bus.getAbsAddr(mode);
+        var addr = operand.address(this.bus);
         var b = this.bus.ReadU8(addr);
         this.raUpdate(b & this.ra);
     }
 
-    private void SHXImpl(AddressMode mode) {
-        var addr = this.bus.getAbsAddr(mode);
+    private void SHXImpl(Operand operand) {
+        var addr = operand.address(this.bus);
         var value = this.rx & u8add(uint8(addr >> 8), 1);
         this.bus.WriteU8(addr, value);
     }
 
-    private void LXAImpl(AddressMode mode) {
-        this.LDAImpl(mode);
+    private void LXAImpl(Operand operand) {
+        this.LDAImpl(operand);
         this.rx = this.ra;
         this.NZUpdate(this.rx);
     }
 
-    private void SRE_LSRImpl(Instruction instruction, AddressMode mode) {
-        this.LSRImpl(mode);
+    private void SRE_LSRImpl(Instruction instruction, Operand operand) {
+        this.LSRImpl(operand);
         if (instruction == Instruction.SRE) {
-            this.LogicImpl(Instruction.EOR, mode);
+            this.LogicImpl(Instruction.EOR, operand);
         }
     }
 
@@ -478,28 +494,28 @@ public class CPU {
         this.pc = this.bus.readInt(this.pc);
     }
 
-    private void SLOImpl(AddressMode mode) {
-        this.ASLImpl(mode);
-        this.LogicImpl(Instruction.ORA, mode);
+    private void SLOImpl(Operand operand) {
+        this.ASLImpl(operand);
+        this.LogicImpl(Instruction.ORA, operand);
     }
 
-    private void ISCImpl(AddressMode mode) {
-        this.INCImpl(Instruction.INC, mode);
-        this.ADCImpl(mode, true);
+    private void ISCImpl(Operand operand) {
+        this.INCImpl(Instruction.INC, operand);
+        this.ADCImpl(operand, true);
     }
 
-    private void RLAImpl(AddressMode mode) {
-        this.ROLImpl(mode);
-        this.ADCImpl(mode, false);
+    private void RLAImpl(Operand operand) {
+        this.ROLImpl(operand);
+        this.ADCImpl(operand, false);
     }
 
-    private void ALRImpl(AddressMode mode) {
-        this.LogicImpl(Instruction.AND, mode);
-        this.LSRImpl(mode);
+    private void ALRImpl(Operand operand) {
+        this.LogicImpl(Instruction.AND, operand);
+        this.LSRImpl(operand);
     }
 
-    private void ANCImpl(AddressMode mode) {
-        this.ADCImpl(mode, false);
+    private void ANCImpl(Operand operand) {
+        this.ADCImpl(operand, false);
         this.status.update(ICPUStatus.CARRY, this.status.contain(ICPUStatus.NEGATIVE));
     }
 
@@ -507,21 +523,21 @@ public class CPU {
         this.pc = this.popInt() + 1;
     }
 
-    private void JMPImpl(AddressMode mode) {
-        this.pc = this.bus.getAbsAddr(mode);
+    private void JMPImpl(Operand operand) {
+        this.pc = operand.address(this.bus);
     }
 
     private void TXSImpl() {
         this.sp = this.rx;
     }
 
-    private void STA_X_YImpl(Instruction instruction, AddressMode mode) {
+    private void STA_X_YImpl(Instruction instruction, Operand operand) {
         var value = switch (instruction) {
             case STA -> this.ra;
             case STX -> this.rx;
             default -> this.ry;
         };
-        this.bus.WriteU8(this.bus.getAbsAddr(mode), value);
+        this.bus.WriteU8(operand.address(this.bus), value);
     }
 
     private void CLC_D_I_VImpl(Instruction instruction) {
@@ -565,18 +581,19 @@ public class CPU {
 
         this.pushInt(this.pc);
 
-        var flag = this.status.copy();
-
         //https://www.nesdev.org/wiki/Status_flags#The_B_flag
-        flag.set(ICPUStatus.EMPTY);
-        flag.update(ICPUStatus.BREAK_COMMAND, interrupt == CPUInterrupt.BRK);
+        var flag = this.status.getBits() | EMPTY_FLAG;
+        if (interrupt == CPUInterrupt.BRK) {
+            flag |= BREAK_FLAG;
+        } else {
+            flag &= ~BREAK_FLAG;
+        }
 
-        this.push(flag.getBits());
+        this.push(int8(flag));
 
-        //Automatically set by the CPU when an IRQ is triggered, and restored to its previous state by RTI.
-        if (interrupt == CPUInterrupt.IRQ) {
-            this.status.set(ICPUStatus.INTERRUPT_DISABLE);
-        }
+        //Automatically set by the CPU when any interrupt(NMI,IRQ,BRK) is triggered, and restored to its previous
+        //state by RTI.Level triggered IRQ line would otherwise re-enter NMI/BRK handler.
+        this.status.set(ICPUStatus.INTERRUPT_DISABLE);
 
         this.pc = this.bus.readInt(interrupt.getVector());
 
@@ -587,85 +604,94 @@ public class CPU {
         return status.getBits();
     }
 
+    /**
+     * Bind target instruction and address mode to a handler,only call once for each opcode when cpu class was
+     * initialized.
+     *
+     * @param ws6502 Instruction info
+     * @return Instruction handler
+     */
+    private static Handler bind(WS6502 ws6502) {
+        var operand = MemoryBusAdapter.operand(ws6502.addrMode());
+        var instruction = ws6502.instruction();
+        return switch (instruction) {
+            case RTI -> CPU::RTImpl;
+            case JSR -> CPU::JSRImpl;
+            case RTS -> CPU::RTSImpl;
+            case TAX -> CPU::TAXImpl;
+            case TAY -> CPU::TAYImpl;
+            case TSX -> CPU::TSXImpl;
+            case TXS -> CPU::TXSImpl;
+            case ASL -> cpu -> cpu.ASLImpl(operand);
+            case ROL -> cpu -> cpu.ROLImpl(operand);
+            case ROR -> cpu -> cpu.RORImpl(operand);
+            case BIT -> cpu -> cpu.BITImpl(operand);
+            case SLO -> cpu -> cpu.SLOImpl(operand);
+            case ISC -> cpu -> cpu.ISCImpl(operand);
+            case RLA -> cpu -> cpu.RLAImpl(operand);
+            case ALR -> cpu -> cpu.ALRImpl(operand);
+            case ANC -> cpu -> cpu.ANCImpl(operand);
+            case XAA -> cpu -> cpu.XAAImpl(operand);
+            case ARR -> cpu -> cpu.ARRImpl(operand);
+            case DCP -> cpu -> cpu.DCPImpl(operand);
+            case LAS -> cpu -> cpu.LASImpl(operand);
+            case LAX -> cpu -> cpu.LAXImpl(operand);
+            case SHX -> cpu -> cpu.SHXImpl(operand);
+            case LXA -> cpu -> cpu.LXAImpl(operand);
+            case SAX -> cpu -> cpu.SAXImpl(operand);
+            case RRA -> cpu -> cpu.RRAImpl(operand);
+            case LDA -> cpu -> cpu.LDAImpl(operand);
+            case JMP -> cpu -> cpu.JMPImpl(operand);
+            case TYA -> cpu -> cpu.raUpdate(cpu.ry);
+            case TXA -> cpu -> cpu.raUpdate(cpu.rx);
+            case SBC -> cpu -> cpu.ADCImpl(operand, true);
+            case ADC -> cpu -> cpu.ADCImpl(operand, false);
+            case PHA, PHP -> cpu -> cpu.PUSHImpl(instruction);
+            case PLA, PLP -> cpu -> cpu.PULLImpl(instruction);
+            case BPL, BMI -> cpu -> cpu.BPL_BMImpl(instruction);
+            case BEQ, BNE -> cpu -> cpu.BEQ_BNEImpl(instruction);
+            case BVC, BVS -> cpu -> cpu.BVC_BVSImpl(instruction);
+            case BCS, BCC -> cpu -> cpu.BCS_BCCImpl(instruction);
+            case LDX, LDY -> cpu -> cpu.LDXYImpl(instruction, operand);
+            case SEC, SED, SEI -> cpu -> cpu.SEC_D_Impl(instruction);
+            case SRE, LSR -> cpu -> cpu.SRE_LSRImpl(instruction, operand);
+            case DEC, DEX, DEY -> cpu -> cpu.DEYImpl(instruction, operand);
+            case CMP, CPX, CPY -> cpu -> cpu.CMPImpl(instruction, operand);
+            case INC, INX, INY -> cpu -> cpu.INCImpl(instruction, operand);
+            case BRK -> cpu -> cpu.NMI_IRQ_BRKInterrupt(CPUInterrupt.BRK);
+            case AND, ORA, EOR -> cpu -> cpu.LogicImpl(instruction, operand);
+            case STA, STY, STX -> cpu -> cpu.STA_X_YImpl(instruction, operand);
+            case CLC, CLD, CLI, CLV -> cpu -> cpu.CLC_D_I_VImpl(instruction);
+            case NOP, NOP_S -> cpu -> {
+            };
+        };
+    }
+
+    /**
+     * Instruction handler which execute on target cpu
+     */
+    @FunctionalInterface
+    private interface Handler {
+        void exec(CPU cpu);
+    }
+
     public void next() {
-        var openCode = this.bus.directRead(this.pc);
-        var state = (++this.pc);
+        var openCode = uint8(this.bus.directRead(this.pc));
 
-        var wrap = MWS6502.get(openCode);
+        var wrap = MWS6502[openCode];
         if (wrap == null) {
-            logger.warning("Unknown opecode 0x{} in address 0x{}", Integer.toHexString(uint8(openCode)), Integer.toHexString(state - 1));
+            logger.warning("Unknown opecode 0x{} in address 0x{}", Integer.toHexString(openCode), Integer.toHexString(this.pc));
+            this.pc++;
             return;
         }
-        var mode = wrap.addrMode();
-        var instruction = wrap.instruction();
 
-        if (logger.isTraceEnabled()) {
-            var operand = "";
-            if (mode != AddressMode.Implied && mode != AddressMode.Accumulator && mode != AddressMode.Relative) {
-                operand = "0x" + Integer.toHexString(this.bus.getAbsAddr(mode));
-            }
-            logger.trace(
-                    "[0x{}] A:{} X:{} Y:{} S:{} {}({}) {}",
-                    Integer.toHexString(this.pc - 1),
-                    Integer.toHexString(this.ra),
-                    Integer.toHexString(this.rx),
-                    Integer.toHexString(this.ry),
-                    this.status,
-                    instruction,
-                    wrap.cycle(),
-                    operand
-            );
+        if (this.trace != null) {
+            this.trace.record(this, wrap);
         }
 
-        switch (instruction) {
-            case RTI -> this.RTImpl();
-            case JSR -> this.JSRImpl();
-            case RTS -> this.RTSImpl();
-            case TAX -> this.TAXImpl();
-            case TAY -> this.TAYImpl();
-            case TSX -> this.TSXImpl();
-            case TXS -> this.TXSImpl();
-            case ASL -> this.ASLImpl(mode);
-            case ROL -> this.ROLImpl(mode);
-            case ROR -> this.RORImpl(mode);
-            case BIT -> this.BITImpl(mode);
-            case SLO -> this.SLOImpl(mode);
-            case ISC -> this.ISCImpl(mode);
-            case RLA -> this.RLAImpl(mode);
-            case ALR -> this.ALRImpl(mode);
-            case ANC -> this.ANCImpl(mode);
-            case XAA -> this.XAAImpl(mode);
-            case ARR -> this.ARRImpl(mode);
-            case DCP -> this.DCPImpl(mode);
-            case LAS -> this.LASImpl(mode);
-            case LAX -> this.LAXImpl(mode);
-            case SHX -> this.SHXImpl(mode);
-            case LXA -> this.LXAImpl(mode);
-            case SAX -> this.SAXImpl(mode);
-            case RRA -> this.RRAImpl(mode);
-            case LDA -> this.LDAImpl(mode);
-            case JMP -> this.JMPImpl(mode);
-            case TYA -> this.raUpdate(this.ry);
-            case TXA -> this.raUpdate(this.rx);
-            case SBC -> this.ADCImpl(mode, true);
-            case ADC -> this.ADCImpl(mode, false);
-            case PHA, PHP -> this.PUSHImpl(instruction);
-            case PLA, PLP -> this.PULLImpl(instruction);
-            case BPL, BMI -> this.BPL_BMImpl(instruction);
-            case BEQ, BNE -> this.BEQ_BNEImpl(instruction);
-            case BVC, BVS -> this.BVC_BVSImpl(instruction);
-            case BCS, BCC -> this.BCS_BCCImpl(instruction);
-            case LDX, LDY -> this.LDXYImpl(instruction, mode);
-            case SEC, SED, SEI -> this.SEC_D_Impl(instruction);
-            case SRE, LSR -> this.SRE_LSRImpl(instruction, mode);
-            case DEC, DEX, DEY -> this.DEYImpl(instruction, mode);
-            case CMP, CPX, CPY -> this.CMPImpl(instruction, mode);
-            case INC, INX, INY -> this.INCImpl(instruction, mode);
-            case BRK -> this.NMI_IRQ_BRKInterrupt(CPUInterrupt.BRK);
-            case AND, ORA, EOR -> this.LogicImpl(instruction, mode);
-            case STA, STY, STX -> this.STA_X_YImpl(instruction, mode);
-            case CLC, CLD, CLI, CLV -> this.CLC_D_I_VImpl(instruction);
-        }
+        var state = (++this.pc);
+
+        HANDLERS[openCode].exec(this);
 
         this.instructions++;
         this.bus._finally(wrap);
@@ -684,6 +710,28 @@ public class CPU {
     }
 
     public static WS6502 IS6502Get(byte openCode) {
-        return MWS6502.get(openCode);
+        return MWS6502[uint8(openCode)];
+    }
+
+    public void save(ByteBuffer buffer) {
+        buffer.putInt(this.ra);
+        buffer.putInt(this.rx);
+        buffer.putInt(this.ry);
+        buffer.putInt(this.pc);
+        buffer.putInt(this.sp);
+        buffer.putLong(this.instructions);
+        buffer.put(this.status.getBits());
+        this.bus.save(buffer);
+    }
+
+    public void load(ByteBuffer buffer) {
+        this.ra = buffer.getInt();
+        this.rx = buffer.getInt();
+        this.ry = buffer.getInt();
+        this.pc = buffer.getInt();
+        this.sp = buffer.getInt();
+        this.instructions = buffer.getLong();
+        this.status.setBits(buffer.get());
+        this.bus.load(buffer);
     }
 }
@@ -3,6 +3,8 @@ package cn.navclub.nes4j.bin.core;
 import cn.navclub.nes4j.bin.NesConsole;
 import cn.navclub.nes4j.bin.function.CycleDriver;
 
+import java.nio.ByteBuffer;
+
 /**
  * Abstract nes system core component common function.
  *
@@ -36,20 +38,20 @@ public interface Component extends CycleDriver {
     }
 
     /**
-     * Snapshot current component status info
+     * Snapshot current component status into buffer
      *
-     * @return Current status info data
+     * @param buffer Save state buffer
      */
-    default byte[] snapshot() {
-        return null;
+    default void save(ByteBuffer buffer) {
+
     }
 
     /**
-     * Recovery current component to target status
+     * Recovery current component to status which read from buffer
      *
-     * @param snapshot Status data
+     * @param buffer Save state buffer
      */
-    default void load(byte[] snapshot) {
+    default void load(ByteBuffer buffer) {
 
     }
 
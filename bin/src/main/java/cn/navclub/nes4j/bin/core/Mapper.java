@@ -3,6 +3,14 @@ package cn.navclub.nes4j.bin.core;
 import cn.navclub.nes4j.bin.NesConsole;
 import cn.navclub.nes4j.bin.config.NMapper;
 import cn.navclub.nes4j.bin.io.Cartridge;
+import lombok.Getter;
+
+import java.nio.ByteBuffer;
+
+import static cn.navclub.nes4j.bin.util.BinUtil.getBool;
+import static cn.navclub.nes4j.bin.util.BinUtil.getInts;
+import static cn.navclub.nes4j.bin.util.BinUtil.putBool;
+import static cn.navclub.nes4j.bin.util.BinUtil.putInts;
 
 /**
  * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
@@ -10,23 +18,81 @@ import cn.navclub.nes4j.bin.io.Cartridge;
 public abstract class Mapper {
     protected static final int CHR_BANK_SIZE = 8 * 1024;
     protected static final int PRG_BANK_SIZE = 16 * 1024;
+    public static final int PRG_WINDOW_SIZE = 8 * 1024;
+    public static final int CHR_WINDOW_SIZE = 1024;
 
     protected final NesConsole console;
     protected final Cartridge cartridge;
+    //Rpg-rom offset of cpu $8000-$FFFF(8 KB per window),only change when PRG bank switched
+    @Getter
+    private final int[] PRGWindow;
+    //Ch-rom offset of ppu $0000-$1FFF(1 KB per window),only change when CHR bank switched
+    @Getter
+    private final int[] CHRWindow;
+    //
+    // Ch-rom which ppu currently use,point to pristine cartridge ch-rom until first write. A written ch-rom may
+    // also be shared with forked console(see NesConsole#fork()),shared ch-rom was copied before write.
+    //
+    private byte[] chrom;
+    //Whether ch-rom was exclusively owned by current mapper
+    private boolean CHROwner;
 
     public Mapper(Cartridge cartridge, NesConsole console) {
         this.console = console;
         this.cartridge = cartridge;
+        this.PRGWindow = new int[4];
+        this.CHRWindow = new int[8];
+        this.chrom = cartridge.getChrom();
+        for (int i = 0; i < this.PRGWindow.length; i++) {
+            this.PRGWindow[i] = i * PRG_WINDOW_SIZE;
+        }
+        for (int i = 0; i < this.CHRWindow.length; i++) {
+            this.CHRWindow[i] = i * CHR_WINDOW_SIZE;
+        }
     }
 
     /**
      * Read from rpg-rom
      *
-     * @param address Target address
+     * @param address Target address(relative to {@code $8000})
      * @return rpg-rom data
      */
-    public byte PRGRead(int address) {
-        return this.cartridge.getRgbrom()[address];
+    public final byte PRGRead(int address) {
+        return this.cartridge.getRgbrom()[this.PRGWindow[address >> 13] + (address & 0x1fff)];
+    }
+
+    /**
+     * Switch {@code size} bytes PRG bank at cpu {@code address}(relative to {@code $8000}) to {@code bank}
+     *
+     * @param address Cpu address
+     * @param size    Bank size(multiple of {@link #PRG_WINDOW_SIZE})
+     * @param bank    Bank index
+     */
+    protected final void PRGSwitch(int address, int size, int bank) {
+        var offset = bank * size;
+        for (int i = 0; i < size / PRG_WINDOW_SIZE; i++) {
+            var index = address / PRG_WINDOW_SIZE + i;
+            this.PRGWindow[index] = (offset + i * PRG_WINDOW_SIZE) % this.prgSize();
+            var bus = this.console.getBus();
+            if (bus != null) {
+                bus.PRGRemap(index);
+            }
+        }
+    }
+
+    /**
+     * Switch {@code size} bytes CHR bank at ppu {@code address} to {@code bank}
+     *
+     * @param address Ppu address
+     * @param size    Bank size(multiple of {@link #CHR_WINDOW_SIZE})
+     * @param bank    Bank index
+     */
+    protected final void CHRSwitch(int address, int size, int bank) {
+        var offset = bank * size;
+        var length = this.getChrom().length;
+        for (int i = 0; i < size / CHR_WINDOW_SIZE; i++) {
+            this.CHRWindow[address / CHR_WINDOW_SIZE + i] = (offset + i * CHR_WINDOW_SIZE) % length;
+        }
     }
 
     /**
@@ -45,8 +111,8 @@ public abstract class Mapper {
      * @param address Target memory address
      * @return Target memory address value
      */
-    public byte CHRead(int address) {
-        return this.getChrom()[address];
+    public final byte CHRead(int address) {
+        return this.getChrom()[this.CHRWindow[address >> 10] + (address & 0x3ff)];
     }
 
     /**
@@ -56,7 +122,13 @@ public abstract class Mapper {
      * @param b       Write target address value
      */
     public final void CHWrite(int address, byte b) {
-        this.getChrom()[address] = b;
+        if (!this.CHROwner) {
+            this.CHROwner = true;
+            this.chrom = this.chrom.clone();
+            this.console.getPpu().getTiles().rebind(this.chrom);
+        }
+        this.chrom[address] = b;
+        this.console.getPpu().getTiles().invalidate(address);
     }
 
     /**
@@ -97,10 +169,93 @@ public abstract class Mapper {
     }
 
     public final byte[] getChrom() {
-        return this.cartridge.getChrom();
+        return this.chrom;
     }
 
     public void PPUVideoAddrState(int addr) {
 
     }
+
+    /**
+     * Whether ch-rom content is part of save state(ch-ram or ch-rom which was written)
+     *
+     * @return If ch-rom need save return true
+     */
+    public final boolean CHRStateful() {
+        return this.chrSize() == 0 || this.chrom != this.cartridge.getChrom();
+    }
+
+    /**
+     * Snapshot mapper status(bank window) into buffer
+     *
+     * @param buffer Save state buffer
+     */
+    public void save(ByteBuffer buffer) {
+        putInts(buffer, this.PRGWindow);
+        putInts(buffer, this.CHRWindow);
+    }
+
+    /**
+     * Recovery mapper status from buffer
+     *
+     * @param buffer Save state buffer
+     */
+    public void load(ByteBuffer buffer) {
+        getInts(buffer, this.PRGWindow);
+        getInts(buffer, this.CHRWindow);
+        var bus = this.console.getBus();
+        for (int i = 0; i < this.PRGWindow.length; i++) {
+            bus.PRGRemap(i);
+        }
+    }
+
+    /**
+     * Snapshot changed ch-rom into buffer
+     *
+     * @param buffer Save state buffer
+     */
+    public final void CHRSave(ByteBuffer buffer) {
+        var stateful = this.CHRStateful();
+        putBool(buffer, stateful);
+        if (stateful) {
+            buffer.put(this.chrom);
+        }
+    }
+
+    /**
+     * Recovery ch-rom from buffer
+     *
+     * @param buffer Save state buffer
+     */
+    public final void CHRLoad(ByteBuffer buffer) {
+        if (getBool(buffer)) {
+            if (!this.CHROwner) {
+                this.CHROwner = true;
+                this.chrom = new byte[this.chrom.length];
+            }
+            buffer.get(this.chrom);
+        } else if (this.chrom == this.cartridge.getChrom()) {
+            return;
+        } else {
+            this.CHROwner = false;
+            this.chrom = this.cartridge.getChrom();
+        }
+        var tiles = this.console.getPpu().getTiles();
+        tiles.rebind(this.chrom);
+        tiles.invalidateAll();
+    }
+
+    /**
+     * Share ch-rom with target mapper,both mapper copy ch-rom on first write.
+     *
+     * @param target Mapper of forked console
+     */
+    public final void CHRShare(Mapper target) {
+        this.CHROwner = false;
+        target.CHROwner = false;
+        target.chrom = this.chrom;
+        var tiles = target.console.getPpu().getTiles();
+        tiles.rebind(this.chrom);
+        this.console.getPpu().getTiles().share(tiles);
+    }
 }
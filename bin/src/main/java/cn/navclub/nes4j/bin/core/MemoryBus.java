@@ -9,7 +9,9 @@ import cn.navclub.nes4j.bin.ppu.PPU;
 import cn.navclub.nes4j.bin.util.BinUtil;
 import lombok.Getter;
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
+import java.util.zip.CRC32;
 
 import static cn.navclub.nes4j.bin.util.BinUtil.int8;
 import static cn.navclub.nes4j.bin.util.BinUtil.uint8;
@@ -21,10 +23,15 @@ public class MemoryBus implements Bus {
     private static final int RPG_ROM_START = 0x8000;
     private static final int RPG_ROM_END = 0xFFFF;
     private static final int RAM_MIRROR_END = 0x1fff;
+    private static final int PAGE_SIZE = 0x100;
+    //Internal ram($0000-$07FF),expansion rom($4000-$5FFF) and sram($6000-$7FFF) page count
+    private static final int RAM_PAGES = 8;
+    private static final int EXP_PAGES = 32;
+    private static final int SRAM_PAGES = 32;
+    //Shared immutable zero page,page which was never written point to it
+    private static final byte[] ZERO_PAGE = new byte[PAGE_SIZE];
     private static final LoggerDelegate log = LoggerFactory.logger(MemoryBus.class);
     private final NesConsole console;
-    @Getter
-    private final byte[] ram;
     //Player1
     private final JoyPad joyPad;
     //Player2
@@ -32,11 +39,24 @@ public class MemoryBus implements Bus {
     @Getter
     private final PPU ppu;
     private final APU apu;
-    //$4020-0x6000 expansion rom
-    private final byte[] exp;
-    //  SRAM (WRAM) [$6000,$8000) is the Save RAM, the addresses used to access RAM in the cartridges
-    //  for storing save games.
-    private final byte[] sram;
+    //
+    // Internal ram,expansion rom($4020-0x6000) and SRAM (WRAM) [$6000,$8000) which is the Save RAM(the addresses
+    // used to access RAM in the cartridges for storing save games) was stored as copy-on-write 256 bytes pages.
+    // A page may be shared with a forked console(see NesConsole#fork()),first write to a shared page copy it.
+    //
+    private final byte[][] memory;
+    //Whether page was exclusively owned by current bus
+    private final boolean[] owned;
+    //
+    // Cpu address space split into 256 pages(256 bytes per page),page which direct mapped to an array(RAM,SRAM,
+    // expansion rom and rpg-rom) was resolved by array index,null page fallback to register read/write logic.
+    // Shared memory page was only present in read page table so that write fallback to copy-on-write logic.
+    //
+    private final byte[][] RPage;
+    private final byte[][] WPage;
+    private final int[] pageOffset;
+    //Memory page index of cpu page,-1 mean cpu page not backed by memory page
+    private final int[] memoryPage;
 
     public MemoryBus(NesConsole console, JoyPad joyPad, JoyPad joyPad1) {
         this.console = console;
@@ -44,16 +64,52 @@ public class MemoryBus implements Bus {
         this.joyPad = joyPad;
         this.joyPad1 = joyPad1;
 
-        this.ram = new byte[2048];
-        this.exp = new byte[0x1fe0];
-        this.sram = new byte[0x2000];
+        this.memory = new byte[RAM_PAGES + EXP_PAGES + SRAM_PAGES][];
+        this.owned = new boolean[this.memory.length];
 
         this.apu = console.getApu();
         this.ppu = console.getPpu();
 
+        this.RPage = new byte[256][];
+        this.WPage = new byte[256][];
+        this.pageOffset = new int[256];
+        this.memoryPage = new int[256];
+
+        Arrays.fill(this.memoryPage, -1);
+        for (int i = 0; i < 0x80; i++) {
+            //Internal ram and mirrors
+            if (i < 0x20) {
+                this.memoryPage[i] = i & 0x07;
+            }
+            //Expansion rom($4000-$40FF shared with io register)
+            else if (i >= 0x40) {
+                this.memoryPage[i] = RAM_PAGES + i - 0x40;
+            }
+        }
+
+        for (int i = 0; i < 4; i++) {
+            this.PRGRemap(i);
+        }
+
         this.reset();
     }
 
+    /**
+     * Refresh rpg-rom pages of target window by current mapper PRG window offset,mapper call this function when PRG
+     * bank was switched.
+     *
+     * @param window PRG window index({@code $8000-$FFFF} per {@link Mapper#PRG_WINDOW_SIZE})
+     */
+    public void PRGRemap(int window) {
+        var rom = this.console.getCartridge().getRgbrom();
+        var offset = this.console.getMapper().getPRGWindow()[window];
+        var start = (RPG_ROM_START + window * Mapper.PRG_WINDOW_SIZE) / PAGE_SIZE;
+        for (int i = 0; i < Mapper.PRG_WINDOW_SIZE / PAGE_SIZE; i++) {
+            this.RPage[start + i] = rom;
+            this.pageOffset[start + i] = offset + i * PAGE_SIZE;
+        }
+    }
+
     /**
      * Mapper to real memory address
      */
@@ -71,10 +127,17 @@ public class MemoryBus implements Bus {
 
     @Override
     public byte read(int address) {
+        if ((address & 0xffff0000) == 0) {
+            var page = address >> 8;
+            var memory = this.RPage[page];
+            if (memory != null) {
+                return memory[this.pageOffset[page] + (address & 0xff)];
+            }
+        }
         final byte b;
         address = this.map(address);
         if (address >= 0 && address <= RAM_MIRROR_END) {
-            b = this.ram[address];
+            b = this.peek(address);
         } else if (address <= 0x2007) {
             b = this.ppu.read(address);
         }
@@ -96,11 +159,11 @@ public class MemoryBus implements Bus {
         }
         //Read a byte from expansion rom
         else if (address >= 0x4020 && address < 0x6000) {
-            b = this.exp[address - 0x4020];
+            b = this.peek(address);
         }
         //Read a byte from sram
         else if (address >= 0x6000 && address < 0x8000) {
-            b = this.sram[address - 0x6000];
+            b = this.peek(address);
         }
         //Read rpg-rom data
         else if (address >= RPG_ROM_START && address <= RPG_ROM_END) {
@@ -121,10 +184,18 @@ public class MemoryBus implements Bus {
      * @param b       Write data
      */
     public void write(int address, byte b) {
+        if ((address & 0xffff0000) == 0) {
+            var page = address >> 8;
+            var memory = this.WPage[page];
+            if (memory != null) {
+                memory[this.pageOffset[page] + (address & 0xff)] = b;
+                return;
+            }
+        }
         address = this.map(address);
 
         if (address >= 0 && address <= RAM_MIRROR_END) {
-            this.ram[address] = b;
+            this.poke(address, b);
         }
         //Writer ppu inner register
         else if (address <= 0x2007) {
@@ -144,11 +215,11 @@ public class MemoryBus implements Bus {
         }
         //Write a byte to expansion rom
         else if (address >= 0x4020 && address < 0x6000) {
-            this.exp[address - 0x4020] = b;
+            this.poke(address, b);
         }
         //Write a byte to sram
         else if (address >= 0x6000 && address < 0x8000) {
-            this.sram[address - 0x6000] = b;
+            this.poke(address, b);
         }
         //Write to cpu memory
         else if (address >= RPG_ROM_START && address <= RPG_ROM_END) {
@@ -197,10 +268,111 @@ public class MemoryBus implements Bus {
         return (lsb & 0xff) | ((msb & 0xff) << 8);
     }
 
+    /**
+     * Read a byte from memory page which back target cpu address
+     */
+    private byte peek(int address) {
+        return this.memory[this.memoryPage[address >> 8]][address & 0xff];
+    }
+
+    /**
+     * Write a byte to memory page which back target cpu address,shared page was copied before write.
+     */
+    private void poke(int address, byte b) {
+        var page = this.memoryPage[address >> 8];
+        if (!this.owned[page]) {
+            this.remap(page, this.memory[page].clone(), true);
+        }
+        this.memory[page][address & 0xff] = b;
+    }
+
+    /**
+     * Replace memory page and refresh all cpu pages(include mirrors) which backed by it
+     */
+    private void remap(int page, byte[] data, boolean owned) {
+        this.owned[page] = owned;
+        this.memory[page] = data;
+        //Internal ram page was mirrored four times
+        var ram = page < RAM_PAGES;
+        var start = ram ? page : page - RAM_PAGES + 0x40;
+        for (int i = start; i < (ram ? 0x20 : start + 1); i += RAM_PAGES) {
+            //$4000-$40FF always fallback to io register logic
+            if (i == 0x40) {
+                continue;
+            }
+            this.RPage[i] = data;
+            this.WPage[i] = owned ? data : null;
+            this.pageOffset[i] = 0;
+        }
+    }
+
+    /**
+     * Copy internal ram
+     *
+     * @return Internal ram(2 KB)
+     */
+    public byte[] getRam() {
+        var ram = new byte[RAM_PAGES * PAGE_SIZE];
+        for (int i = 0; i < RAM_PAGES; i++) {
+            System.arraycopy(this.memory[i], 0, ram, i * PAGE_SIZE, PAGE_SIZE);
+        }
+        return ram;
+    }
+
+    /**
+     * CRC32 of internal ram,used to compare emulation result
+     *
+     * @return Ram checksum
+     */
+    public int checksum() {
+        var crc = new CRC32();
+        for (int i = 0; i < RAM_PAGES; i++) {
+            crc.update(this.memory[i]);
+        }
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Share all memory pages with target bus,both bus copy a page on first write.
+     *
+     * @param target Bus of forked console
+     */
+    public void fork(MemoryBus target) {
+        for (int i = 0; i < this.memory.length; i++) {
+            if (this.owned[i]) {
+                this.remap(i, this.memory[i], false);
+            }
+            target.remap(i, this.memory[i], false);
+        }
+        this.joyPad.copy(target.joyPad);
+        this.joyPad1.copy(target.joyPad1);
+    }
+
     @Override
     public void reset() {
-        Arrays.fill(this.ram, (byte) 0);
-        Arrays.fill(this.exp, (byte) 0);
-        Arrays.fill(this.sram, (byte) 0);
+        for (int i = 0; i < this.memory.length; i++) {
+            this.remap(i, ZERO_PAGE, false);
+        }
+    }
+
+    @Override
+    public void save(ByteBuffer buffer) {
+        for (byte[] page : this.memory) {
+            buffer.put(page);
+        }
+        this.joyPad.save(buffer);
+        this.joyPad1.save(buffer);
+    }
+
+    @Override
+    public void load(ByteBuffer buffer) {
+        for (int i = 0; i < this.memory.length; i++) {
+            if (!this.owned[i]) {
+                this.remap(i, new byte[PAGE_SIZE], true);
+            }
+            buffer.get(this.memory[i]);
+        }
+        this.joyPad.load(buffer);
+        this.joyPad1.load(buffer);
     }
 }
@@ -5,6 +5,7 @@ import cn.navclub.nes4j.bin.config.AddressMode;
 import cn.navclub.nes4j.bin.config.WS6502;
 import lombok.Getter;
 
+import java.nio.ByteBuffer;
 
 import static cn.navclub.nes4j.bin.util.BinUtil.u8add;
 
@@ -29,50 +30,88 @@ public class MemoryBusAdapter implements Bus {
         this.bus = console.getBus();
     }
 
-    public int getAbsAddr(AddressMode mode) {
-        var regX = this.cpu.getRx();
-        var regY = this.cpu.getRy();
-        var proCounter = this.cpu.getPc();
+    /**
+     * Effective address fetcher of an address mode,bound once per opcode so that instruction handler not
+     * dispatch address mode again.
+     */
+    @FunctionalInterface
+    public interface Operand {
+        int address(MemoryBusAdapter bus);
+    }
+
+    /**
+     * Get target address mode operand fetcher
+     *
+     * @param mode Address mode
+     * @return Operand fetcher,{@code null} for {@link AddressMode#Accumulator}(operand is accumulator)
+     */
+    public static Operand operand(AddressMode mode) {
         return switch (mode) {
-            case Immediate -> proCounter;
-            case ZeroPage -> this.ReadU8(proCounter);
-            case Absolute, Indirect -> {
-                var base = this.readInt(proCounter);
-                if (mode == AddressMode.Indirect) {
-                    base = this.readInt(base);
-                }
-                yield base;
-            }
-            case ZeroPage_X -> u8add(this.ReadU8(proCounter), regX);
-            case ZeroPage_Y -> u8add(this.ReadU8(proCounter), regY);
-            case Absolute_X -> {
-                var base = this.readInt(proCounter);
-                var addr = base + regX;
-                this.pageCross(base, addr);
-                yield addr;
-            }
-            case Absolute_Y -> {
-                var base = this.readInt(proCounter);
-                var addr = base + regY;
-                this.pageCross(base, addr);
-                yield addr;
-            }
-            case Indirect_X -> {
-                var base = this.ReadU8(proCounter);
-                var ptr = u8add(base, regX);
-                yield this.readInt(ptr);
-            }
-            case Indirect_Y -> {
-                var base = this.ReadU8(proCounter);
-                base = this.readInt(base);
-                var addr = base + regY;
-                pageCross(base, addr);
-                yield addr;
-            }
-            default -> 0;
+            case Accumulator -> null;
+            case Immediate -> MemoryBusAdapter::immediate;
+            case ZeroPage -> MemoryBusAdapter::zeroPage;
+            case ZeroPage_X -> MemoryBusAdapter::zeroPageX;
+            case ZeroPage_Y -> MemoryBusAdapter::zeroPageY;
+            case Absolute -> MemoryBusAdapter::absolute;
+            case Absolute_X -> MemoryBusAdapter::absoluteX;
+            case Absolute_Y -> MemoryBusAdapter::absoluteY;
+            case Indirect -> MemoryBusAdapter::indirect;
+            case Indirect_X -> MemoryBusAdapter::indirectX;
+            case Indirect_Y -> MemoryBusAdapter::indirectY;
+            default -> bus -> 0;
         };
     }
 
+    private int immediate() {
+        return this.cpu.getPc();
+    }
+
+    private int zeroPage() {
+        return this.ReadU8(this.cpu.getPc());
+    }
+
+    private int zeroPageX() {
+        return u8add(this.ReadU8(this.cpu.getPc()), this.cpu.getRx());
+    }
+
+    private int zeroPageY() {
+        return u8add(this.ReadU8(this.cpu.getPc()), this.cpu.getRy());
+    }
+
+    private int absolute() {
+        return this.readInt(this.cpu.getPc());
+    }
+
+    private int absoluteX() {
+        var base = this.readInt(this.cpu.getPc());
+        var addr = base + this.cpu.getRx();
+        this.pageCross(base, addr);
+        return addr;
+    }
+
+    private int absoluteY() {
+        var base = this.readInt(this.cpu.getPc());
+        var addr = base + this.cpu.getRy();
+        this.pageCross(base, addr);
+        return addr;
+    }
+
+    private int indirect() {
+        return this.readInt(this.readInt(this.cpu.getPc()));
+    }
+
+    private int indirectX() {
+        var ptr = u8add(this.ReadU8(this.cpu.getPc()), this.cpu.getRx());
+        return this.readInt(ptr);
+    }
+
+    private int indirectY() {
+        var base = this.readInt(this.ReadU8(this.cpu.getPc()));
+        var addr = base + this.cpu.getRy();
+        this.pageCross(base, addr);
+        return addr;
+    }
+
 
     /**
      * Judge whether the data obtained in the current addressing mode is spread across pages
@@ -90,25 +129,25 @@ public class MemoryBusAdapter implements Bus {
 
     @Override
     public void WriteU8(int address, int value) {
-        this.SyncOtherComponent();
+        this.SyncOtherComponent(address, true);
         this.bus.WriteU8(address, value);
     }
 
     @Override
     public int ReadU8(int address) {
-        this.SyncOtherComponent();
+        this.SyncOtherComponent(address, false);
         return this.bus.ReadU8(address);
     }
 
     @Override
     public byte read(int address) {
-        this.SyncOtherComponent();
+        this.SyncOtherComponent(address, false);
         return this.bus.read(address);
     }
 
     @Override
     public void write(int address, byte value) {
-        this.SyncOtherComponent();
+        this.SyncOtherComponent(address, true);
         this.bus.write(address, value);
     }
 
@@ -119,14 +158,40 @@ public class MemoryBusAdapter implements Bus {
 
     @Override
     public int readInt(int address) {
-        this.SyncOtherComponent();
+        this.SyncOtherComponent(address, false);
         return this.bus.readInt(address);
     }
 
     private void SyncOtherComponent() {
         this.cycles++;
         this.variation--;
-        this.console.APU_PPuSync();
+    }
+
+    /**
+     * Other component only catch up to current cycle when cpu touch their register(PPU/APU/IO register read and
+     * write,mapper register write),otherwise only advance cpu cycle.
+     *
+     * @param address Memory address
+     * @param write   Whether write operation
+     * @see NesConsole#sync()
+     */
+    private void SyncOtherComponent(int address, boolean write) {
+        this.SyncOtherComponent();
+        if (address < 0x2000 || (address >= 0x4020 && (!write || address < 0x8000))) {
+            return;
+        }
+        //PPU register and OAM DMA
+        if (address < 0x4000 || address == 0x4014) {
+            this.console.PPUSync();
+        }
+        //APU register
+        else if (address < 0x4016 || address == 0x4017) {
+            this.console.APUSync();
+        }
+        //Controller and mapper register
+        else {
+            this.console.sync();
+        }
     }
 
     public byte directRead(int addr) {
@@ -135,9 +200,21 @@ public class MemoryBusAdapter implements Bus {
 
     protected void _finally(WS6502 ws6502) {
         var tmp = ws6502.cycle() + this.variation;
-        while (tmp-- > 0) {
-            this.SyncOtherComponent();
+        if (tmp > 0) {
+            this.cycles += tmp;
         }
         this.variation = 0;
     }
+
+    @Override
+    public void save(ByteBuffer buffer) {
+        buffer.putLong(this.cycles);
+        buffer.putInt(this.variation);
+    }
+
+    @Override
+    public void load(ByteBuffer buffer) {
+        this.cycles = buffer.getLong();
+        this.variation = buffer.getInt();
+    }
 }
@@ -4,6 +4,8 @@ import cn.navclub.nes4j.bin.NesConsole;
 import cn.navclub.nes4j.bin.core.Mapper;
 import cn.navclub.nes4j.bin.io.Cartridge;
 
+import java.nio.ByteBuffer;
+
 /**
  * <h2>
  * <a href="https://www.nesdev.org/wiki/INES_Mapper_003">INES Mapper 003(CNROM)</a>
@@ -44,10 +46,18 @@ public class CNMapper extends Mapper {
     @Override
     public void PRGWrite(int address, byte b) {
         this.chrBank = (b & shifter);
+        this.CHRSwitch(0, CHR_BANK_SIZE, this.chrBank);
+    }
+
+    @Override
+    public void save(ByteBuffer buffer) {
+        super.save(buffer);
+        buffer.putInt(this.chrBank);
     }
 
     @Override
-    public byte CHRead(int address) {
-        return this.getChrom()[this.chrBank * CHR_BANK_SIZE + address];
+    public void load(ByteBuffer buffer) {
+        super.load(buffer);
+        this.chrBank = buffer.getInt();
     }
 }
@@ -5,6 +5,10 @@ import cn.navclub.nes4j.bin.config.NameMirror;
 import cn.navclub.nes4j.bin.core.Mapper;
 import cn.navclub.nes4j.bin.io.Cartridge;
 
+import java.nio.ByteBuffer;
+
+import static cn.navclub.nes4j.bin.util.BinUtil.getInts;
+import static cn.navclub.nes4j.bin.util.BinUtil.putInts;
 
 /**
  * The Konami VRC2 and Konami VRC4 are two related ASIC mappers in the VRC[1] family.
@@ -29,13 +33,17 @@ public class KonamiVRC24 extends Mapper {
         this.CHRMapper = new int[8];
         this.chrMode = this.chrSize() / 0x400 - 1;
         this.mod = this.PRGMapper[3] = this.calMaxBankIdx(PRG_SWAP_SIZE);
+
+        this.PRGBankSwitch();
+        for (int i = 0; i < this.CHRMapper.length; i++) {
+            this.CHRSwitch(i * 0x400, 0x400, this.CHRMapper[i]);
+        }
     }
 
-    @Override
-    public byte PRGRead(int address) {
-        var idx = this.PRGMapper[address / PRG_SWAP_SIZE];
-        var offset = address % PRG_SWAP_SIZE;
-        return super.PRGRead(idx * PRG_SWAP_SIZE + offset);
+    private void PRGBankSwitch() {
+        for (int i = 0; i < this.PRGMapper.length; i++) {
+            this.PRGSwitch(i * PRG_SWAP_SIZE, PRG_SWAP_SIZE, this.PRGMapper[i]);
+        }
     }
 
     @Override
@@ -87,6 +95,7 @@ public class KonamiVRC24 extends Mapper {
                 this.PRGMapper[0] = this.PRGMapper[3] - 1;
                 this.PRGMapper[2] = idx;
             }
+            this.PRGBankSwitch();
         }
         /*
          * PRG Select 1 ($A000, $A001, $A002, $A003)
@@ -98,6 +107,7 @@ public class KonamiVRC24 extends Mapper {
          */
         if (address > 0x9FFF && address < 0xA004) {
             this.PRGMapper[1] = (b & this.mod);
+            this.PRGBankSwitch();
         }
         /*
          * Mirroring Control ($9000, $9001, $9002, $9003)
@@ -147,13 +157,6 @@ public class KonamiVRC24 extends Mapper {
         }
     }
 
-    @Override
-    public byte CHRead(int address) {
-        var idx = address / 0x400;
-        var offset = address % 0x400;
-        return this.getChrom()[this.CHRMapper[idx] * 0x400 + offset];
-    }
-
     /**
      * CHR Select 0 low($B000), high($B001)
      * $B000        $B001
@@ -185,6 +188,25 @@ public class KonamiVRC24 extends Mapper {
         } else {
             this.chrBank |= (b & 0x1F) << 4;
             this.CHRMapper[idx] = (this.chrBank & this.chrMode);
+            this.CHRSwitch(idx * 0x400, 0x400, this.CHRMapper[idx]);
         }
     }
+
+    @Override
+    public void save(ByteBuffer buffer) {
+        super.save(buffer);
+        buffer.putInt(this.chrBank);
+        buffer.putInt(this.swapMode);
+        putInts(buffer, this.PRGMapper);
+        putInts(buffer, this.CHRMapper);
+    }
+
+    @Override
+    public void load(ByteBuffer buffer) {
+        super.load(buffer);
+        this.chrBank = buffer.getInt();
+        this.swapMode = buffer.getInt();
+        getInts(buffer, this.PRGMapper);
+        getInts(buffer, this.CHRMapper);
+    }
 }
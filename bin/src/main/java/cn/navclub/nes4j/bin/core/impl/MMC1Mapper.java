@@ -5,6 +5,10 @@ import cn.navclub.nes4j.bin.config.NameMirror;
 import cn.navclub.nes4j.bin.core.Mapper;
 import cn.navclub.nes4j.bin.io.Cartridge;
 
+import java.nio.ByteBuffer;
+
+import static cn.navclub.nes4j.bin.util.BinUtil.getInts;
+import static cn.navclub.nes4j.bin.util.BinUtil.putInts;
 import static cn.navclub.nes4j.bin.util.BinUtil.uint8;
 
 /**
@@ -145,6 +149,8 @@ public class MMC1Mapper extends Mapper {
                     this.PRGBank[0] = this.MMC1SR;
                     this.PRGBank[1] = this.calMaxBankIdx();
                 }
+                this.PRGSwitch(0, PRG_BANK_SIZE, this.PRGBank[0]);
+                this.PRGSwitch(PRG_BANK_SIZE, PRG_BANK_SIZE, this.PRGBank[1]);
             }
         }
         this.MMC1SR = DEFAULT_MMC1SR;
@@ -188,27 +194,39 @@ public class MMC1Mapper extends Mapper {
         } else if (!swap8k) {
             this.ChrBank[1] = MMC1SR;
         }
+        this.CHRSwitch(0, 0x1000, this.ChrBank[0]);
+        this.CHRSwitch(0x1000, 0x1000, this.ChrBank[1]);
     }
 
     @Override
-    public byte CHRead(int address) {
-        var idx = address / 0x1000;
-        var offset = address % 0x1000;
-        return super.CHRead(this.ChrBank[idx] * 0x1000 + offset);
+    public void reset() {
+        this.PRGSwapMode = 3;
+        this.MMC1SR = DEFAULT_MMC1SR;
+        this.PRGBank[0] = 0;
+        this.PRGBank[1] = this.calMaxBankIdx();
+        this.PRGSwitch(0, PRG_BANK_SIZE, this.PRGBank[0]);
+        this.PRGSwitch(PRG_BANK_SIZE, PRG_BANK_SIZE, this.PRGBank[1]);
+        this.CHRSwitch(0, 0x1000, this.ChrBank[0]);
+        this.CHRSwitch(0x1000, 0x1000, this.ChrBank[1]);
     }
 
     @Override
-    public byte PRGRead(int address) {
-        var idx = address / PRG_BANK_SIZE;
-        var offset = address % PRG_BANK_SIZE;
-        return super.PRGRead(this.PRGBank[idx] * PRG_BANK_SIZE + offset);
+    public void save(ByteBuffer buffer) {
+        super.save(buffer);
+        buffer.putInt(this.MMC1SR);
+        buffer.putInt(this.ChrSwapMode);
+        buffer.putInt(this.PRGSwapMode);
+        putInts(buffer, this.PRGBank);
+        putInts(buffer, this.ChrBank);
     }
 
     @Override
-    public void reset() {
-        this.PRGSwapMode = 3;
-        this.MMC1SR = DEFAULT_MMC1SR;
-        this.PRGBank[0] = 0;
-        this.PRGBank[1] = this.calMaxBankIdx();
+    public void load(ByteBuffer buffer) {
+        super.load(buffer);
+        this.MMC1SR = buffer.getInt();
+        this.ChrSwapMode = buffer.getInt();
+        this.PRGSwapMode = buffer.getInt();
+        getInts(buffer, this.PRGBank);
+        getInts(buffer, this.ChrBank);
     }
 }
@@ -1,11 +1,17 @@
 package cn.navclub.nes4j.bin.core.impl;
 
 import cn.navclub.nes4j.bin.NesConsole;
-import cn.navclub.nes4j.bin.config.CPUInterrupt;
+import cn.navclub.nes4j.bin.config.IRQSource;
 import cn.navclub.nes4j.bin.config.NameMirror;
 import cn.navclub.nes4j.bin.core.Mapper;
 import cn.navclub.nes4j.bin.io.Cartridge;
 
+import java.nio.ByteBuffer;
+
+import static cn.navclub.nes4j.bin.util.BinUtil.getBool;
+import static cn.navclub.nes4j.bin.util.BinUtil.getInts;
+import static cn.navclub.nes4j.bin.util.BinUtil.putBool;
+import static cn.navclub.nes4j.bin.util.BinUtil.putInts;
 import static cn.navclub.nes4j.bin.util.BinUtil.uint8;
 
 /**
@@ -79,6 +85,9 @@ public class MMC3Mapper extends Mapper {
         this.PRGMode = calMaxBankIdx(PRG_BANK_BANK);
         this.PRGBank[3] = this.PRGMode;
         this.PRGBank[2] = this.PRGMode - 1;
+
+        this.PRGBankSwitch();
+        this.CHRBankSwitch();
     }
 
     @Override
@@ -185,6 +194,9 @@ public class MMC3Mapper extends Mapper {
         // even: Writing any value to this register will disable MMC3 interrupts AND acknowledge any pending interrupts.
         if (address >= 0xe000 && address <= 0xffff) {
             this.IRQEnable = !even;
+            if (even) {
+                this.console.setIRQ(IRQSource.MAPPER, false);
+            }
         }
 
         // PRG RAM protect ($A001-$BFFF, odd)
@@ -219,6 +231,19 @@ public class MMC3Mapper extends Mapper {
             this.PRGBank[this.pbm << 1] = offset;
             this.PRGBank[((this.pbm ^ 0xff) << 1) & 0x03] = this.PRGMode - 1;
         }
+        this.PRGBankSwitch();
+    }
+
+    private void PRGBankSwitch() {
+        for (int i = 0; i < this.PRGBank.length; i++) {
+            this.PRGSwitch(i * PRG_BANK_BANK, PRG_BANK_BANK, this.PRGBank[i]);
+        }
+    }
+
+    private void CHRBankSwitch() {
+        for (int i = 0; i < this.CHRBank.length; i++) {
+            this.CHRSwitch(i * 0x400, 0x400, this.CHRBank[i]);
+        }
     }
 
     private void ChrSwap(byte b) {
@@ -253,20 +278,7 @@ public class MMC3Mapper extends Mapper {
             var k = this.chrInversion == 0 ? 2 : -2;
             this.CHRBank[k + r] = index;
         }
-    }
-
-    @Override
-    public byte PRGRead(int address) {
-        var idx = address / PRG_BANK_BANK;
-        var offset = address % PRG_BANK_BANK;
-        return super.PRGRead(this.PRGBank[idx] * 0x2000 + offset);
-    }
-
-    @Override
-    public byte CHRead(int address) {
-        var index = address / 0x400;
-        var offset = address % 0x400;
-        return this.getChrom()[this.CHRBank[index] * 0x400 + offset];
+        this.CHRBankSwitch();
     }
 
     @Override
@@ -287,7 +299,7 @@ public class MMC3Mapper extends Mapper {
         // The "alternate revision" checks the IRQ counter transition 1→0, whether from
         // decrementing or reloading.
         if (this.counter == 0 && this.IRQEnable) {
-            this.console.hardwareInterrupt(CPUInterrupt.IRQ);
+            this.console.setIRQ(IRQSource.MAPPER, true);
         }
 
         this.reloadFlag = false;
@@ -304,4 +316,34 @@ public class MMC3Mapper extends Mapper {
         }
         return risingEdge;
     }
+
+    @Override
+    public void save(ByteBuffer buffer) {
+        super.save(buffer);
+        buffer.putInt(this.r);
+        buffer.putInt(this.pbm);
+        buffer.putInt(this.latch);
+        buffer.putInt(this.counter);
+        buffer.putInt(this.chrInversion);
+        putBool(buffer, this.IRQEnable);
+        putBool(buffer, this.reloadFlag);
+        putInts(buffer, this.PRGBank);
+        putInts(buffer, this.CHRBank);
+        buffer.putLong(this.a12LowCycle);
+    }
+
+    @Override
+    public void load(ByteBuffer buffer) {
+        super.load(buffer);
+        this.r = buffer.getInt();
+        this.pbm = buffer.getInt();
+        this.latch = buffer.getInt();
+        this.counter = buffer.getInt();
+        this.chrInversion = buffer.getInt();
+        this.IRQEnable = getBool(buffer);
+        this.reloadFlag = getBool(buffer);
+        getInts(buffer, this.PRGBank);
+        getInts(buffer, this.CHRBank);
+        this.a12LowCycle = buffer.getLong();
+    }
 }
@@ -4,6 +4,11 @@ import cn.navclub.nes4j.bin.NesConsole;
 import cn.navclub.nes4j.bin.core.Mapper;
 import cn.navclub.nes4j.bin.io.Cartridge;
 
+import java.nio.ByteBuffer;
+
+import static cn.navclub.nes4j.bin.util.BinUtil.getInts;
+import static cn.navclub.nes4j.bin.util.BinUtil.putInts;
+
 public class UXMapper extends Mapper {
     private int offset;
     private final int[] PRGBank;
@@ -12,6 +17,7 @@ public class UXMapper extends Mapper {
         super(cartridge, console);
         this.PRGBank = new int[2];
         this.PRGBank[1] = this.calMaxBankIdx();
+        this.PRGSwitch(PRG_BANK_SIZE, PRG_BANK_SIZE, this.PRGBank[1]);
     }
 
     /**
@@ -30,12 +36,20 @@ public class UXMapper extends Mapper {
     @Override
     public void PRGWrite(int address, byte b) {
         this.PRGBank[0] = b & this.PRGBank[1];
+        this.PRGSwitch(0, PRG_BANK_SIZE, this.PRGBank[0]);
+    }
+
+    @Override
+    public void save(ByteBuffer buffer) {
+        super.save(buffer);
+        buffer.putInt(this.offset);
+        putInts(buffer, this.PRGBank);
     }
 
     @Override
-    public byte PRGRead(int address) {
-        var idx = address / 0x4000;
-        var offset = address % 0x4000;
-        return super.PRGRead((this.PRGBank[idx] * PRG_BANK_SIZE) + offset);
+    public void load(ByteBuffer buffer) {
+        super.load(buffer);
+        this.offset = buffer.getInt();
+        getInts(buffer, this.PRGBank);
     }
 }
@@ -0,0 +1,261 @@
+package cn.navclub.nes4j.bin.debug;
+
+import cn.navclub.nes4j.bin.NesConsole;
+import cn.navclub.nes4j.bin.config.WS6502;
+import cn.navclub.nes4j.bin.core.CPU;
+import lombok.Getter;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static cn.navclub.nes4j.bin.util.BinUtil.uint8;
+
+/**
+ * Binary cpu execution trace recorder.
+ * <p>
+ * Before every instruction a fixed size record was written into a preallocated ring(direct memory or memory mapped
+ * file), nothing was formatted and no bus cycle was counted(ppu position was predicted without catch up) so
+ * emulation timing is not touched. When ring is
+ * full the oldest records were overwritten. {@link #decode(ByteBuffer, Appendable)} turn records into nestest like
+ * text log offline.
+ * </p>
+ * <pre>
+ *     header: [magic][version][record size][capacity][record count(long)][reserved...]
+ *     record: [cycle(long)][pc(short)][opcode][operand lsb][operand msb][a][x][y][p][sp][scanline(short)][dot(short)][reserved(short)]
+ * </pre>
+ *
+ * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
+ */
+public class CPUTrace implements Closeable {
+    //Trace file magic number("N4TR")
+    private static final int MAGIC = 0x4e345452;
+    private static final int VERSION = 1;
+    private static final int HEADER = 32;
+    public static final int RECORD = 24;
+
+    private final ByteBuffer buffer;
+    private final FileChannel channel;
+    //Max record number
+    @Getter
+    private final int capacity;
+    //Total record number since created(ring index is count % capacity)
+    @Getter
+    private long count;
+    private NesConsole console;
+
+    private CPUTrace(ByteBuffer buffer, FileChannel channel, int capacity) {
+        this.buffer = buffer.order(ByteOrder.LITTLE_ENDIAN);
+        this.channel = channel;
+        this.capacity = capacity;
+        this.buffer.putInt(0, MAGIC);
+        this.buffer.putInt(4, VERSION);
+        this.buffer.putInt(8, RECORD);
+        this.buffer.putInt(12, capacity);
+        this.buffer.putLong(16, 0);
+    }
+
+    private static long size(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Trace capacity must be positive.");
+        }
+        var size = HEADER + (long) capacity * RECORD;
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Trace capacity too large:" + capacity);
+        }
+        return size;
+    }
+
+    /**
+     * Create a trace ring in direct memory
+     *
+     * @param capacity Max record number
+     */
+    public static CPUTrace allocate(int capacity) {
+        return new CPUTrace(ByteBuffer.allocateDirect((int) size(capacity)), null, capacity);
+    }
+
+    /**
+     * Create a trace ring backed by memory mapped file,file was truncated to ring size
+     *
+     * @param path     Trace file
+     * @param capacity Max record number
+     */
+    public static CPUTrace open(Path path, int capacity) throws IOException {
+        var size = size(capacity);
+        var channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            return new CPUTrace(channel.map(FileChannel.MapMode.READ_WRITE, 0, size), channel, capacity);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Called by {@link NesConsole#setTrace(CPUTrace)}
+     */
+    public void attach(NesConsole console) {
+        this.console = console;
+    }
+
+    /**
+     * Called by {@link CPU} before instruction execute
+     *
+     * @param cpu      Cpu instance
+     * @param instance Instruction which will be executed
+     */
+    public void record(CPU cpu, WS6502 instance) {
+        //Run-ahead speculative frames are discarded,only trace real timeline
+        if (this.console.isSpeculating()) {
+            return;
+        }
+        var pc = cpu.getPc();
+        var offset = HEADER + (int) (this.count % this.capacity) * RECORD;
+        var clock = this.console.clock();
+        var position = this.console.getPpu().position(clock);
+        var bus = this.console.getBus();
+        var buffer = this.buffer;
+        buffer.putLong(offset, clock);
+        buffer.putShort(offset + 8, (short) pc);
+        buffer.put(offset + 10, instance.openCode());
+        //Operand byte was read from cpu ram,sram or prg-rom only(register read has side effect)
+        var readable = pc < 0x2000 || pc >= 0x6000;
+        buffer.put(offset + 11, readable && instance.size() > 1 ? bus.read(pc + 1) : 0);
+        buffer.put(offset + 12, readable && instance.size() > 2 ? bus.read(pc + 2) : 0);
+        buffer.put(offset + 13, (byte) cpu.getRa());
+        buffer.put(offset + 14, (byte) cpu.getRx());
+        buffer.put(offset + 15, (byte) cpu.getRy());
+        buffer.put(offset + 16, cpu.getStatus());
+        buffer.put(offset + 17, (byte) cpu.getSp());
+        buffer.putShort(offset + 18, (short) (position >> 16));
+        buffer.putShort(offset + 20, (short) position);
+        this.count++;
+    }
+
+    /**
+     * Write record count into header
+     */
+    public void flush() {
+        this.buffer.putLong(16, this.count);
+        if (this.buffer instanceof MappedByteBuffer mapped) {
+            mapped.force();
+        }
+    }
+
+    /**
+     * Decode this trace ring
+     */
+    public void decode(Appendable out) throws IOException {
+        this.buffer.putLong(16, this.count);
+        decode(this.buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN), out);
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.flush();
+        if (this.channel != null) {
+            this.channel.close();
+        }
+    }
+
+    /**
+     * Decode trace records(oldest first) into nestest like text log:
+     * <pre>
+     *     C000  4C F5 C5  JMP $C5F5                       A:00 X:00 Y:00 P:24 SP:FD PPU:  0, 21 CYC:7
+     * </pre>
+     * Memory value annotation(such as {@code = 00}) is not available offline and was omitted,P register was printed
+     * as pushed by PHP without B flag(bit 5 set,bit 4 clear) same as nestest.
+     *
+     * @param buffer Trace data which written by {@link CPUTrace}
+     * @param out    Text output
+     */
+    public static void decode(ByteBuffer buffer, Appendable out) throws IOException {
+        buffer = buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || buffer.getInt(8) != RECORD) {
+            throw new IllegalArgumentException("Illegal cpu trace data.");
+        }
+        var capacity = buffer.getInt(12);
+        var count = buffer.getLong(16);
+        var start = Math.max(0, count - capacity);
+        var line = new StringBuilder(96);
+        for (long i = start; i < count; i++) {
+            var offset = HEADER + (int) (i % capacity) * RECORD;
+            var pc = buffer.getShort(offset + 8) & 0xffff;
+            var opcode = buffer.get(offset + 10);
+            var lsb = uint8(buffer.get(offset + 11));
+            var msb = uint8(buffer.get(offset + 12));
+            var instance = CPU.IS6502Get(opcode);
+            var size = instance == null ? 1 : instance.size();
+            line.setLength(0);
+            line.append("%04X  %02X".formatted(pc, uint8(opcode)));
+            line.append(size > 1 ? " %02X".formatted(lsb) : "   ");
+            line.append(size > 2 ? " %02X".formatted(msb) : "   ");
+            line.append("  ").append("%-32s".formatted(disassemble(instance, pc, lsb, msb)));
+            line.append("A:%02X X:%02X Y:%02X P:%02X SP:%02X PPU:%3d,%3d CYC:%d".formatted(
+                    uint8(buffer.get(offset + 13)),
+                    uint8(buffer.get(offset + 14)),
+                    uint8(buffer.get(offset + 15)),
+                    (uint8(buffer.get(offset + 16)) | 0x20) & ~0x10,
+                    uint8(buffer.get(offset + 17)),
+                    buffer.getShort(offset + 18),
+                    buffer.getShort(offset + 20),
+                    buffer.getLong(offset)
+            ));
+            out.append(line).append('\n');
+        }
+    }
+
+    private static String disassemble(WS6502 instance, int pc, int lsb, int msb) {
+        if (instance == null) {
+            return "???";
+        }
+        var name = instance.instruction().name();
+        var word = msb << 8 | lsb;
+        var operand = switch (instance.addrMode()) {
+            case Accumulator -> "A";
+            case Immediate -> "#$%02X".formatted(lsb);
+            case ZeroPage -> "$%02X".formatted(lsb);
+            case ZeroPage_X -> "$%02X,X".formatted(lsb);
+            case ZeroPage_Y -> "$%02X,Y".formatted(lsb);
+            case Absolute -> "$%04X".formatted(word);
+            case Absolute_X -> "$%04X,X".formatted(word);
+            case Absolute_Y -> "$%04X,Y".formatted(word);
+            case Indirect -> "($%04X)".formatted(word);
+            case Indirect_X -> "($%02X,X)".formatted(lsb);
+            case Indirect_Y -> "($%02X),Y".formatted(lsb);
+            case Relative -> "$%04X".formatted((pc + 2 + (byte) lsb) & 0xffff);
+            case Implied -> "";
+        };
+        return operand.isEmpty() ? name : name + " " + operand;
+    }
+
+    /**
+     * Decode trace file to text log
+     * <pre>
+     *     usage: CPUTrace <trace file> [output file]
+     * </pre>
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("Usage:CPUTrace <trace file> [output file]");
+            return;
+        }
+        var buffer = ByteBuffer.wrap(Files.readAllBytes(Path.of(args[0])));
+        try (Writer writer = args.length > 1
+                ? Files.newBufferedWriter(Path.of(args[1]))
+                : new BufferedWriter(new OutputStreamWriter(System.out))) {
+            decode(buffer, writer);
+        }
+    }
+}
@@ -4,11 +4,11 @@ import cn.navclub.nes4j.bin.io.JoyPad;
 import cn.navclub.nes4j.bin.ppu.Frame;
 
 /**
- * Game loop callback
+ * Game loop callback,called on game loop thread every frame so arguments are primitive(no boxing).
  *
  * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
  */
 @FunctionalInterface
 public interface GameLoopCallback {
-    void accept(Integer a, Boolean b, Frame c, JoyPad d, JoyPad e);
+    void accept(int a, boolean b, Frame c, JoyPad d, JoyPad e);
 }
@@ -2,6 +2,10 @@ package cn.navclub.nes4j.bin.io;
 
 import cn.navclub.nes4j.bin.util.BinUtil;
 
+import java.nio.ByteBuffer;
+
+import static cn.navclub.nes4j.bin.util.BinUtil.getBool;
+import static cn.navclub.nes4j.bin.util.BinUtil.putBool;
 import static cn.navclub.nes4j.bin.util.BinUtil.uint8;
 
 /**
@@ -89,13 +93,31 @@ public class JoyPad {
         return (byte) b;
     }
 
+    /**
+     * Get all button status(one bit per {@link JoypadButton} ordinal)
+     *
+     * @return Button status bits
+     */
+    public byte getBits() {
+        return this.bits;
+    }
+
+    /**
+     * Replace all button status at once
+     *
+     * @param bits Button status bits
+     */
+    public void setBits(byte bits) {
+        this.bits = bits;
+    }
+
     public void updateBtnStatus(JoypadButton action, boolean press) {
         final byte tmp;
         var ordinal = action.ordinal();
         if (press) {
             tmp = (byte) (this.bits | (1 << ordinal));
         } else {
-            tmp = (byte) (this.bits & (0xff - (int) (Math.pow(2, ordinal))));
+            tmp = (byte) (this.bits & ~(1 << ordinal));
         }
         this.bits = tmp;
     }
@@ -138,4 +160,26 @@ public class JoyPad {
         }
     }
 
+    public void save(ByteBuffer buffer) {
+        buffer.putInt(this.index);
+        putBool(buffer, this.strobe);
+        buffer.put(this.bits);
+    }
+
+    public void load(ByteBuffer buffer) {
+        this.index = buffer.getInt();
+        this.strobe = getBool(buffer);
+        this.bits = buffer.get();
+    }
+
+    /**
+     * Copy shift register status into target joypad
+     *
+     * @param target Target joypad
+     */
+    public void copy(JoyPad target) {
+        target.index = this.index;
+        target.strobe = this.strobe;
+        target.bits = this.bits;
+    }
 }
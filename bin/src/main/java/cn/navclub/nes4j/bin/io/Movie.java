@@ -0,0 +1,239 @@
+package cn.navclub.nes4j.bin.io;
+
+import cn.navclub.nes4j.bin.NesConsole;
+import cn.navclub.nes4j.bin.logging.LoggerDelegate;
+import cn.navclub.nes4j.bin.logging.LoggerFactory;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * Deterministic input movie.
+ * <p>
+ * Movie always start from power on, both controller status were sampled once per frame on emulation thread when
+ * frame was output(same moment as {@link cn.navclub.nes4j.bin.function.GameLoopCallback} poll input) and keyed by
+ * frame index since reset. Playback write recorded status back at the same moment, so input is replayed at the
+ * same emulated cycle no matter how fast the console run. Every {@code interval} frames a CRC32 of cpu ram was
+ * kept as checkpoint, playback compare it to detect desync.
+ * </p>
+ * <p>
+ * A loaded save state or rewind move frame index backward, recording continue from there(later input was
+ * discarded) and playback continue from the matched frame.
+ * </p>
+ * <pre>
+ *     file: [magic][version][prg-rom crc32][interval][length][checkpoint count][checkpoint crc32...]
+ *           [repeat count varint][player1 bits][player2 bits]...
+ * </pre>
+ *
+ * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
+ */
+public class Movie {
+    private static final LoggerDelegate log = LoggerFactory.logger(Movie.class);
+    //Movie file magic number("NESM")
+    private static final int MAGIC = 0x4e45534d;
+    private static final int VERSION = 1;
+
+    //Whether movie is playback mode
+    @Getter
+    private final boolean playback;
+    //Frames per ram checkpoint
+    @Getter
+    private final int interval;
+    //Checksum of prg-rom which movie was recorded on
+    private int cartridge;
+    //Controller status,two bytes per frame
+    private byte[] inputs;
+    //Recorded frame count
+    @Getter
+    private int length;
+    //Ram checksum per interval
+    private int[] checkpoints;
+    private int checkpointCount;
+    //First frame which ram checksum mismatch,-1 mean no desync
+    @Getter
+    private long desync;
+
+    private Movie(boolean playback, int interval) {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("Checkpoint interval must be positive.");
+        }
+        this.desync = -1;
+        this.playback = playback;
+        this.interval = interval;
+        this.inputs = new byte[1024];
+        this.checkpoints = new int[64];
+    }
+
+    /**
+     * Create an empty movie for recording
+     *
+     * @param interval Frames per ram checkpoint
+     * @return Recording movie
+     */
+    public static Movie record(int interval) {
+        return new Movie(false, interval);
+    }
+
+    /**
+     * Read movie file for playback
+     *
+     * @param path Movie file
+     * @return Playback movie
+     * @throws IOException Read file fail
+     */
+    public static Movie read(Path path) throws IOException {
+        var buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+        if (buffer.getInt() != MAGIC) {
+            throw new IllegalArgumentException("Illegal movie file.");
+        }
+        var version = buffer.getInt();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported movie version:" + version);
+        }
+        var cartridge = buffer.getInt();
+        var movie = new Movie(true, buffer.getInt());
+        movie.cartridge = cartridge;
+        movie.length = buffer.getInt();
+        movie.checkpointCount = buffer.getInt();
+        movie.inputs = new byte[movie.length * 2];
+        movie.checkpoints = new int[movie.checkpointCount];
+        for (int i = 0; i < movie.checkpointCount; i++) {
+            movie.checkpoints[i] = buffer.getInt();
+        }
+        for (int i = 0; i < movie.length; ) {
+            var repeat = getVarint(buffer);
+            var p1 = buffer.get();
+            var p2 = buffer.get();
+            for (int j = 0; j < repeat; j++, i++) {
+                movie.inputs[i * 2] = p1;
+                movie.inputs[i * 2 + 1] = p2;
+            }
+        }
+        return movie;
+    }
+
+    /**
+     * Write movie into file,repeated controller status was run length encoded.
+     *
+     * @param path Target file
+     * @throws IOException Write file fail
+     */
+    public void write(Path path) throws IOException {
+        var buffer = ByteBuffer.allocate(24 + this.checkpointCount * 4 + this.length * 7);
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putInt(this.cartridge);
+        buffer.putInt(this.interval);
+        buffer.putInt(this.length);
+        buffer.putInt(this.checkpointCount);
+        for (int i = 0; i < this.checkpointCount; i++) {
+            buffer.putInt(this.checkpoints[i]);
+        }
+        for (int i = 0; i < this.length; ) {
+            var p1 = this.inputs[i * 2];
+            var p2 = this.inputs[i * 2 + 1];
+            var repeat = 0;
+            while (i < this.length && this.inputs[i * 2] == p1 && this.inputs[i * 2 + 1] == p2) {
+                repeat++;
+                i++;
+            }
+            putVarint(buffer, repeat);
+            buffer.put(p1);
+            buffer.put(p2);
+        }
+        Files.write(path, Arrays.copyOf(buffer.array(), buffer.position()));
+    }
+
+    /**
+     * Bind movie to console cartridge,playback movie must be recorded on same cartridge.
+     *
+     * @param cartridge Console cartridge
+     */
+    public void attach(Cartridge cartridge) {
+        var crc = new CRC32();
+        crc.update(cartridge.getRgbrom());
+        var value = (int) crc.getValue();
+        if (this.playback && value != this.cartridge) {
+            throw new IllegalArgumentException("Movie not belong to current cartridge.");
+        }
+        this.cartridge = value;
+    }
+
+    /**
+     * Called by console on emulation thread when a frame was output,record or replay controller status of
+     * this frame.
+     *
+     * @param console Target console
+     */
+    public void frame(NesConsole console) {
+        var frame = console.getPpu().getFrames();
+        if (frame <= 0) {
+            return;
+        }
+        var index = (int) (frame - 1);
+        var checkpoint = frame % this.interval == 0;
+        if (this.playback) {
+            if (index < this.length) {
+                console.getJoyPad().setBits(this.inputs[index * 2]);
+                console.getJoyPad1().setBits(this.inputs[index * 2 + 1]);
+            }
+            var n = (int) (frame / this.interval) - 1;
+            if (checkpoint && n < this.checkpointCount && this.desync == -1
+                    && this.checkpoints[n] != console.getBus().checksum()) {
+                this.desync = frame;
+                log.warning("Movie desync detected at frame {}.", frame);
+            }
+            return;
+        }
+        //Input after current frame was discarded(state was loaded or rewound)
+        this.length = index;
+        this.checkpointCount = Math.min(this.checkpointCount, (int) ((frame - 1) / this.interval));
+        if (this.inputs.length < this.length * 2 + 2) {
+            this.inputs = Arrays.copyOf(this.inputs, this.inputs.length * 2);
+        }
+        this.inputs[index * 2] = console.getJoyPad().getBits();
+        this.inputs[index * 2 + 1] = console.getJoyPad1().getBits();
+        this.length++;
+        if (checkpoint) {
+            if (this.checkpointCount == this.checkpoints.length) {
+                this.checkpoints = Arrays.copyOf(this.checkpoints, this.checkpoints.length * 2);
+            }
+            this.checkpoints[this.checkpointCount++] = console.getBus().checksum();
+        }
+    }
+
+    /**
+     * Whether all recorded input was replayed
+     *
+     * @param console Target console
+     * @return If finished return true
+     */
+    public boolean isFinished(NesConsole console) {
+        return this.playback && console.getPpu().getFrames() >= this.length;
+    }
+
+    private static void putVarint(ByteBuffer buffer, int value) {
+        while ((value & ~0x7f) != 0) {
+            buffer.put((byte) ((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private static int getVarint(ByteBuffer buffer) {
+        var value = 0;
+        var shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            value |= (b & 0x7f) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+}
@@ -0,0 +1,433 @@
+package cn.navclub.nes4j.bin.io;
+
+import cn.navclub.nes4j.bin.NesConsole;
+import cn.navclub.nes4j.bin.apu.NullPlayer;
+import cn.navclub.nes4j.bin.config.SampleEncoding;
+import cn.navclub.nes4j.bin.config.TV;
+import cn.navclub.nes4j.bin.logging.LoggerDelegate;
+import cn.navclub.nes4j.bin.logging.LoggerFactory;
+import cn.navclub.nes4j.bin.ppu.ColorTable;
+import cn.navclub.nes4j.bin.ppu.Frame;
+import lombok.Getter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Audio/video capture recorder.
+ * <p>
+ * Emulation thread only copy completed frame(palette index and emphasis) and mixer amplitude into preallocated slots
+ * of bounded lock-free queues, it never wait, when a queue is full the frame or sample block was dropped and
+ * counted. A background writer thread convert slots into preallocated direct buffers and write them by
+ * {@link FileChannel}.
+ * </p>
+ * <pre>
+ *     audio: wav(signed 16 bit mono pcm at apu synthesis sample rate)
+ *     video: raw rgb24(256x240 frames back to back) or y4m(4:4:4)
+ * </pre>
+ * Audio was taken from apu synthesis output, so console must have a player({@link NullPlayer} for headless run).
+ * Only real frames were captured(run-ahead speculative frames were not).
+ *
+ * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
+ */
+public class Recorder implements Closeable {
+    private static final LoggerDelegate log = LoggerFactory.logger(Recorder.class);
+    //Queue depth(about half second)
+    private static final int SLOTS = 32;
+    private static final int WAV_HEADER = 44;
+    //Wav sample encoding
+    private static final SampleEncoding WAV_ENCODING = SampleEncoding.PCM_S16;
+    private static final int PIXELS = Frame.width * Frame.height;
+    private static final byte[] Y4M_FRAME = "FRAME\n".getBytes(StandardCharsets.US_ASCII);
+
+    public enum VideoFormat {
+        //Raw rgb24 frames without header
+        RGB24,
+        //YUV4MPEG2 4:4:4,frame rate is exact NTSC/PAL rate
+        Y4M
+    }
+
+    private static class Picture {
+        private final byte[] pixels = new byte[PIXELS];
+        private final byte[] emphasis = new byte[Frame.height];
+    }
+
+    private static class Block {
+        private final int[] samples;
+        private int count;
+
+        private Block(int capacity) {
+            this.samples = new int[capacity];
+        }
+    }
+
+    /**
+     * Single producer single consumer queue of preallocated slots
+     */
+    private static class Lane<T> {
+        private final T[] slots;
+        private final int mask;
+        //Filled slot count(written by producer only)
+        private final AtomicLong head;
+        //Released slot count(written by consumer only)
+        private final AtomicLong tail;
+
+        private Lane(T[] slots) {
+            this.slots = slots;
+            this.mask = slots.length - 1;
+            this.head = new AtomicLong();
+            this.tail = new AtomicLong();
+        }
+
+        /**
+         * Producer take a free slot
+         *
+         * @return Free slot,{@code null} when queue is full
+         */
+        private T claim() {
+            var head = this.head.getPlain();
+            if (head - this.tail.getAcquire() == this.slots.length) {
+                return null;
+            }
+            return this.slots[(int) (head & this.mask)];
+        }
+
+        private void publish() {
+            this.head.setRelease(this.head.getPlain() + 1);
+        }
+
+        /**
+         * Consumer take oldest filled slot
+         *
+         * @return Filled slot,{@code null} when queue is empty
+         */
+        private T peek() {
+            var tail = this.tail.getPlain();
+            if (tail == this.head.getAcquire()) {
+                return null;
+            }
+            return this.slots[(int) (tail & this.mask)];
+        }
+
+        private void release() {
+            this.tail.setRelease(this.tail.getPlain() + 1);
+        }
+    }
+
+    private final FileChannel audio;
+    private final FileChannel video;
+    private final VideoFormat format;
+    //Color index(emphasis + palette index) to output color component
+    private final byte[][] colors;
+    private Lane<Picture> pictures;
+    private Lane<Block> blocks;
+    private Thread writer;
+    private TV tv;
+    private int sampleRate;
+    private volatile boolean closed;
+    //Producer is between closed check and publish
+    private volatile boolean busy;
+    //Set by close when producer can no longer publish,writer exit after final drain
+    private volatile boolean stop;
+    private volatile IOException error;
+    //Audio data bytes written(touched by writer only)
+    private long audioBytes;
+    @Getter
+    private volatile long frames;
+    @Getter
+    private volatile long droppedFrames;
+    @Getter
+    private volatile long samples;
+    @Getter
+    private volatile long droppedSamples;
+
+    /**
+     * @param audio  Wav file,{@code null} not capture audio
+     * @param video  Video file,{@code null} not capture video
+     * @param format Video format
+     */
+    public Recorder(Path audio, Path video, VideoFormat format) throws IOException {
+        this.format = format;
+        this.audio = audio == null ? null : open(audio);
+        try {
+            this.video = video == null ? null : open(video);
+        } catch (IOException e) {
+            if (this.audio != null) {
+                this.audio.close();
+            }
+            throw e;
+        }
+        this.colors = new byte[3][512];
+        for (int i = 0; i < 512; i++) {
+            var argb = ColorTable.DEFAULT.argb(i);
+            var r = (argb >> 16) & 0xff;
+            var g = (argb >> 8) & 0xff;
+            var b = argb & 0xff;
+            if (format == VideoFormat.Y4M) {
+                //BT.601 limited range
+                this.colors[0][i] = (byte) Math.round(16 + (65.481 * r + 128.553 * g + 24.966 * b) / 255);
+                this.colors[1][i] = (byte) Math.round(128 + (-37.797 * r - 74.203 * g + 112.0 * b) / 255);
+                this.colors[2][i] = (byte) Math.round(128 + (112.0 * r - 93.786 * g - 18.214 * b) / 255);
+            } else {
+                this.colors[0][i] = (byte) r;
+                this.colors[1][i] = (byte) g;
+                this.colors[2][i] = (byte) b;
+            }
+        }
+    }
+
+    private static FileChannel open(Path path) throws IOException {
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    /**
+     * Called by {@link NesConsole#setRecorder(Recorder)},start writer thread
+     */
+    public void attach(NesConsole console) {
+        if (this.writer != null) {
+            throw new IllegalStateException("Recorder already attached.");
+        }
+        this.tv = console.getCartridge().getTv();
+        if (this.audio != null) {
+            this.sampleRate = console.getApu().outputRate();
+            if (this.sampleRate == 0) {
+                throw new IllegalStateException("Audio capture require a player(use NullPlayer for headless run).");
+            }
+            var slots = new Block[SLOTS];
+            for (int i = 0; i < SLOTS; i++) {
+                //Far more than a synthesis block(about a video frame)
+                slots[i] = new Block(this.sampleRate / 10);
+            }
+            this.blocks = new Lane<>(slots);
+        }
+        if (this.video != null) {
+            var slots = new Picture[SLOTS];
+            for (int i = 0; i < SLOTS; i++) {
+                slots[i] = new Picture();
+            }
+            this.pictures = new Lane<>(slots);
+        }
+        this.writer = new Thread(this::exec, "Recorder");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Called by {@link NesConsole} when a real frame was completed
+     *
+     * @param frame Completed frame
+     */
+    public void video(Frame frame) {
+        if (this.pictures == null) {
+            return;
+        }
+        this.busy = true;
+        try {
+            if (this.closed) {
+                return;
+            }
+            var slot = this.pictures.claim();
+            if (slot == null) {
+                this.droppedFrames++;
+                return;
+            }
+            frame.copyIndex(slot.pixels);
+            frame.copyEmphasis(slot.emphasis);
+            this.pictures.publish();
+            this.frames++;
+        } finally {
+            this.busy = false;
+        }
+        LockSupport.unpark(this.writer);
+    }
+
+    /**
+     * Called by apu when a synthesis block end
+     *
+     * @param amplitude Mixer amplitude(0-65535)
+     * @param count     Sample number
+     */
+    public void audio(int[] amplitude, int count) {
+        if (this.blocks == null) {
+            return;
+        }
+        this.busy = true;
+        try {
+            if (this.closed) {
+                return;
+            }
+            var slot = this.blocks.claim();
+            if (slot == null || count > slot.samples.length) {
+                this.droppedSamples += count;
+                return;
+            }
+            System.arraycopy(amplitude, 0, slot.samples, 0, count);
+            slot.count = count;
+            this.blocks.publish();
+            this.samples += count;
+        } finally {
+            this.busy = false;
+        }
+    }
+
+    private void exec() {
+        var pcm = this.blocks == null ? null : ByteBuffer
+                .allocateDirect(this.blocks.slots[0].samples.length * WAV_ENCODING.bytes)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        var picture = this.pictures == null ? null : ByteBuffer
+                .allocateDirect(this.format == VideoFormat.Y4M ? Y4M_FRAME.length + PIXELS * 3 : PIXELS * 3);
+        try {
+            this.writeHeader();
+            while (true) {
+                //Read before drain so that everything published before close was written
+                var stop = this.stop;
+                var idle = true;
+                Picture p;
+                while (this.pictures != null && (p = this.pictures.peek()) != null) {
+                    this.encode(p, picture.clear());
+                    this.pictures.release();
+                    write(this.video, picture.flip());
+                    idle = false;
+                }
+                Block b;
+                while (this.blocks != null && (b = this.blocks.peek()) != null) {
+                    pcm.clear();
+                    for (int i = 0; i < b.count; i++) {
+                        pcm.putShort((short) (Math.min(Math.max(b.samples[i], 0), 0xffff) - 0x8000));
+                    }
+                    this.blocks.release();
+                    this.audioBytes += pcm.flip().remaining();
+                    write(this.audio, pcm);
+                    idle = false;
+                }
+                if (idle) {
+                    if (stop) {
+                        break;
+                    }
+                    LockSupport.parkNanos(10_000_000);
+                }
+            }
+        } catch (IOException e) {
+            log.fatal("Capture write fail.", e);
+            this.error = e;
+            this.closed = true;
+        }
+    }
+
+    private void writeHeader() throws IOException {
+        if (this.audio != null) {
+            write(this.audio, this.wavHeader());
+        }
+        if (this.video != null && this.format == VideoFormat.Y4M) {
+            var rate = this.tv == TV.NTSC ? "3579546:59561" : "3325214:66495";
+            var header = "YUV4MPEG2 W%d H%d F%s Ip A1:1 C444\n".formatted(Frame.width, Frame.height, rate);
+            write(this.video, ByteBuffer.wrap(header.getBytes(StandardCharsets.US_ASCII)));
+        }
+    }
+
+    private ByteBuffer wavHeader() {
+        var data = (int) Math.min(this.audioBytes, 0xffffffffL - 36);
+        var buffer = ByteBuffer.allocate(WAV_HEADER).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put("RIFF".getBytes(StandardCharsets.US_ASCII));
+        buffer.putInt(36 + data);
+        buffer.put("WAVEfmt ".getBytes(StandardCharsets.US_ASCII));
+        buffer.putInt(16);
+        //PCM,mono
+        buffer.putShort((short) 1);
+        buffer.putShort((short) 1);
+        buffer.putInt(this.sampleRate);
+        buffer.putInt(this.sampleRate * WAV_ENCODING.bytes);
+        buffer.putShort((short) WAV_ENCODING.bytes);
+        buffer.putShort((short) (WAV_ENCODING.bytes * 8));
+        buffer.put("data".getBytes(StandardCharsets.US_ASCII));
+        buffer.putInt(data);
+        return buffer.flip();
+    }
+
+    private void encode(Picture picture, ByteBuffer buffer) {
+        var c0 = this.colors[0];
+        var c1 = this.colors[1];
+        var c2 = this.colors[2];
+        var pixels = picture.pixels;
+        if (this.format == VideoFormat.Y4M) {
+            buffer.put(Y4M_FRAME);
+            var base = buffer.position();
+            for (int y = 0, i = 0; y < Frame.height; y++) {
+                var e = picture.emphasis[y] << 6;
+                for (int end = i + Frame.width; i < end; i++) {
+                    var index = e | pixels[i];
+                    buffer.put(base + i, c0[index]);
+                    buffer.put(base + PIXELS + i, c1[index]);
+                    buffer.put(base + PIXELS * 2 + i, c2[index]);
+                }
+            }
+            buffer.position(base + PIXELS * 3);
+        } else {
+            for (int y = 0, i = 0; y < Frame.height; y++) {
+                var e = picture.emphasis[y] << 6;
+                for (int end = i + Frame.width; i < end; i++) {
+                    var index = e | pixels[i];
+                    buffer.put(c0[index]).put(c1[index]).put(c2[index]);
+                }
+            }
+        }
+    }
+
+    private static void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Stop capture,wait writer thread drain queues and then close files(wav header size was patched). May be
+     * called from any thread, a frame or sample block which was being published concurrently is still written
+     * and everything after close is ignored.
+     *
+     * @throws IOException When writer thread failed
+     */
+    @Override
+    public void close() throws IOException {
+        this.closed = true;
+        //Producer which saw closed clear must finish publish before writer final drain(both flags volatile)
+        while (this.busy) {
+            Thread.onSpinWait();
+        }
+        this.stop = true;
+        if (this.writer != null) {
+            LockSupport.unpark(this.writer);
+            try {
+                this.writer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            if (this.audio != null && this.writer != null && this.error == null) {
+                var header = this.wavHeader();
+                while (header.hasRemaining()) {
+                    this.audio.write(header, header.position());
+                }
+            }
+        } finally {
+            if (this.audio != null) {
+                this.audio.close();
+            }
+            if (this.video != null) {
+                this.video.close();
+            }
+        }
+        if (this.error != null) {
+            throw this.error;
+        }
+    }
+}
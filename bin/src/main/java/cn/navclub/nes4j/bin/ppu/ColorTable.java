@@ -0,0 +1,80 @@
+package cn.navclub.nes4j.bin.ppu;
+
+/**
+ * Lookup table which convert {@link Frame} pixel(3 bit emphasis + 6 bit palette index) to output color.
+ *
+ * <pre>
+ *  8      0
+ *  ---------
+ *  BGRPPPPPP
+ *  |||||||||
+ *  |||++++++- System palette index
+ *  ||+------- Emphasize red
+ *  |+-------- Emphasize green
+ *  +--------- Emphasize blue
+ * </pre>
+ *
+ * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
+ */
+public class ColorTable {
+    private static final int[][] DEF_SYS_PALETTE = {
+            {0x80, 0x80, 0x80}, {0x00, 0x3D, 0xA6}, {0x00, 0x12, 0xB0}, {0x44, 0x00, 0x96}, {0xA1, 0x00, 0x5E},
+            {0xC7, 0x00, 0x28}, {0xBA, 0x06, 0x00}, {0x8C, 0x17, 0x00}, {0x5C, 0x2F, 0x00}, {0x10, 0x45, 0x00},
+            {0x05, 0x4A, 0x00}, {0x00, 0x47, 0x2E}, {0x00, 0x41, 0x66}, {0x00, 0x00, 0x00}, {0x05, 0x05, 0x05},
+            {0x05, 0x05, 0x05}, {0xC7, 0xC7, 0xC7}, {0x00, 0x77, 0xFF}, {0x21, 0x55, 0xFF}, {0x82, 0x37, 0xFA},
+            {0xEB, 0x2F, 0xB5}, {0xFF, 0x29, 0x50}, {0xFF, 0x22, 0x00}, {0xD6, 0x32, 0x00}, {0xC4, 0x62, 0x00},
+            {0x35, 0x80, 0x00}, {0x05, 0x8F, 0x00}, {0x00, 0x8A, 0x55}, {0x00, 0x99, 0xCC}, {0x21, 0x21, 0x21},
+            {0x09, 0x09, 0x09}, {0x09, 0x09, 0x09}, {0xFF, 0xFF, 0xFF}, {0x0F, 0xD7, 0xFF}, {0x69, 0xA2, 0xFF},
+            {0xD4, 0x80, 0xFF}, {0xFF, 0x45, 0xF3}, {0xFF, 0x61, 0x8B}, {0xFF, 0x88, 0x33}, {0xFF, 0x9C, 0x12},
+            {0xFA, 0xBC, 0x20}, {0x9F, 0xE3, 0x0E}, {0x2B, 0xF0, 0x35}, {0x0C, 0xF0, 0xA4}, {0x05, 0xFB, 0xFF},
+            {0x5E, 0x5E, 0x5E}, {0x0D, 0x0D, 0x0D}, {0x0D, 0x0D, 0x0D}, {0xFF, 0xFF, 0xFF}, {0xA6, 0xFC, 0xFF},
+            {0xB3, 0xEC, 0xFF}, {0xDA, 0xAB, 0xEB}, {0xFF, 0xA8, 0xF9}, {0xFF, 0xAB, 0xB3}, {0xFF, 0xD2, 0xB0},
+            {0xFF, 0xEF, 0xA6}, {0xFF, 0xF7, 0x9C}, {0xD7, 0xE8, 0x95}, {0xA6, 0xED, 0xAF}, {0xA2, 0xF2, 0xDA},
+            {0x99, 0xFF, 0xFC}, {0xDD, 0xDD, 0xDD}, {0x11, 0x11, 0x11}, {0x11, 0x11, 0x11}
+    };
+
+    public static final ColorTable DEFAULT = new ColorTable(DEF_SYS_PALETTE);
+
+    private final int[] argb;
+    private final short[] rgb565;
+    private final byte[] grayscale;
+
+    /**
+     * Create lookup table from system palette
+     *
+     * @param sysPalette 64 rgb color
+     */
+    public ColorTable(int[][] sysPalette) {
+        this.argb = new int[512];
+        this.rgb565 = new short[512];
+        this.grayscale = new byte[512];
+        for (int i = 0; i < 512; i++) {
+            var rgb = sysPalette[i & 0x3f];
+            var emphasis = i >> 6;
+            var r = rgb[0];
+            var g = rgb[1];
+            var b = rgb[2];
+            //Emphasis bit attenuate other two color channel
+            if (emphasis != 0) {
+                r = (emphasis & 1) != 0 ? r : r * 3 / 4;
+                g = (emphasis & 2) != 0 ? g : g * 3 / 4;
+                b = (emphasis & 4) != 0 ? b : b * 3 / 4;
+            }
+            this.argb[i] = 0xff << 24 | r << 16 | g << 8 | b;
+            this.rgb565[i] = (short) ((r >> 3) << 11 | (g >> 2) << 5 | (b >> 3));
+            this.grayscale[i] = (byte) ((r * 299 + g * 587 + b * 114) / 1000);
+        }
+    }
+
+    public final int argb(int pixel) {
+        return this.argb[pixel];
+    }
+
+    public final short rgb565(int pixel) {
+        return this.rgb565[pixel];
+    }
+
+    public final byte grayscale(int pixel) {
+        return this.grayscale[pixel];
+    }
+}
@@ -1,29 +1,136 @@
 package cn.navclub.nes4j.bin.ppu;
 
 import java.util.Arrays;
+import java.util.zip.CRC32;
 
 /**
+ * Palette indexed video frame.
+ * <p>
+ * Every pixel store 6 bit system palette index and every scanline store 3 bit {@code PPUMASK} color
+ * emphasis, consumer convert whole frame into target color format by {@link ColorTable}.
+ * </p>
+ *
  * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
  */
 public class Frame {
     public static final int width = 256;
     public static final int height = 240;
 
-    private final int[] pixels;
+    //System palette index
+    private final byte[] pixels;
+    //Color emphasis per scanline
+    private final byte[] emphasis;
 
     public Frame() {
-        this.pixels = new int[width * height];
+        this.pixels = new byte[width * height];
+        this.emphasis = new byte[height];
     }
 
+    /**
+     * Get pixel color table index(3 bit emphasis + 6 bit palette index)
+     *
+     * @param pos Pixel position
+     * @return Color table index
+     */
+    public final int getIndex(int pos) {
+        return this.emphasis[pos / width] << 6 | this.pixels[pos];
+    }
+
+    /**
+     * Get pixel ARGB color by {@link ColorTable#DEFAULT}
+     *
+     * @param pos Pixel position
+     * @return ARGB color
+     */
     public final int getPixel(int pos) {
-        return this.pixels[pos];
+        return ColorTable.DEFAULT.argb(this.getIndex(pos));
+    }
+
+    public void update(int x, int y, int index) {
+        this.pixels[y * width + x] = (byte) index;
+    }
+
+    public void emphasis(int y, int emphasis) {
+        this.emphasis[y] = (byte) emphasis;
+    }
+
+    /**
+     * Convert whole frame into ARGB color
+     *
+     * @param table Color table
+     * @param dst   Target buffer, length at least {@code width * height}
+     */
+    public void toARGB(ColorTable table, int[] dst) {
+        for (int y = 0, i = 0; y < height; y++) {
+            var e = this.emphasis[y] << 6;
+            for (int end = i + width; i < end; i++) {
+                dst[i] = table.argb(e | this.pixels[i]);
+            }
+        }
+    }
+
+    /**
+     * Convert whole frame into RGB565 color
+     *
+     * @param table Color table
+     * @param dst   Target buffer, length at least {@code width * height}
+     */
+    public void toRGB565(ColorTable table, short[] dst) {
+        for (int y = 0, i = 0; y < height; y++) {
+            var e = this.emphasis[y] << 6;
+            for (int end = i + width; i < end; i++) {
+                dst[i] = table.rgb565(e | this.pixels[i]);
+            }
+        }
+    }
+
+    /**
+     * Convert whole frame into 8 bit grayscale
+     *
+     * @param table Color table
+     * @param dst   Target buffer, length at least {@code width * height}
+     */
+    public void toGrayscale(ColorTable table, byte[] dst) {
+        for (int y = 0, i = 0; y < height; y++) {
+            var e = this.emphasis[y] << 6;
+            for (int end = i + width; i < end; i++) {
+                dst[i] = table.grayscale(e | this.pixels[i]);
+            }
+        }
+    }
+
+    /**
+     * Copy raw palette index into target buffer
+     *
+     * @param dst Target buffer, length at least {@code width * height}
+     */
+    public void copyIndex(byte[] dst) {
+        System.arraycopy(this.pixels, 0, dst, 0, this.pixels.length);
+    }
+
+    /**
+     * Copy color emphasis of every scanline into target buffer
+     *
+     * @param dst Target buffer, length at least {@code height}
+     */
+    public void copyEmphasis(byte[] dst) {
+        System.arraycopy(this.emphasis, 0, dst, 0, this.emphasis.length);
     }
 
-    public void update(int x, int y, int pixel) {
-        this.pixels[y * width + x] = pixel;
+    /**
+     * CRC32 of palette index and color emphasis,used to compare video output
+     *
+     * @return Frame checksum
+     */
+    public int checksum() {
+        var crc = new CRC32();
+        crc.update(this.pixels);
+        crc.update(this.emphasis);
+        return (int) crc.getValue();
     }
 
     public void clear() {
-        Arrays.fill(this.pixels, 0, this.pixels.length, (byte) 0);
+        Arrays.fill(this.pixels, (byte) 0);
+        Arrays.fill(this.emphasis, (byte) 0);
     }
 }
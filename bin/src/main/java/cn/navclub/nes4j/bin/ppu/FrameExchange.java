@@ -0,0 +1,87 @@
+package cn.navclub.nes4j.bin.ppu;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lock-free triple buffered {@link Frame} exchange between emulation thread(producer) and a display
+ * thread(consumer).
+ * <p>
+ * Three frame was rotated between back(being drawn by {@link Render}), ready(newest complete frame) and
+ * front(being read by consumer). Both side only swap own frame with ready frame by a single atomic operation,
+ * so producer never wait for a slow consumer and consumer never see half-drawn frame.
+ * </p>
+ * <pre>
+ *     state: ........ ........ ........ .....fii
+ *                                            |++----- Ready frame index
+ *                                            +------- Whether ready frame not yet acquired by consumer
+ * </pre>
+ *
+ * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
+ */
+public class FrameExchange {
+    private static final int FRESH = 0x04;
+    private static final int INDEX = 0x03;
+
+    private final Frame[] frames;
+    private final AtomicInteger state;
+    //Only touched by producer
+    private int back;
+    //Only touched by consumer
+    private int front;
+
+    public FrameExchange() {
+        //Frame was lazy allocated(a forked or headless console may never use all three frames)
+        this.frames = new Frame[3];
+        this.back = 0;
+        this.front = 1;
+        this.state = new AtomicInteger(2);
+    }
+
+    /**
+     * Frame which producer currently draw into
+     *
+     * @return Back frame
+     */
+    public Frame back() {
+        return this.frame(this.back);
+    }
+
+    /**
+     * Publish complete back frame and take a free frame as new back frame. Published frame will not be drawn
+     * again until next publish, so producer can still read it synchronously.
+     *
+     * @return New back frame
+     */
+    public Frame publish() {
+        this.back = this.state.getAndSet(this.back | FRESH) & INDEX;
+        return this.frame(this.back);
+    }
+
+    /**
+     * Acquire newest complete frame, returned frame is safe to read until next acquire.
+     *
+     * @return Newest complete frame, {@code null} if there is no new frame since last acquire.
+     */
+    public Frame acquire() {
+        if ((this.state.get() & FRESH) == 0) {
+            return null;
+        }
+        this.front = this.state.getAndSet(this.front) & INDEX;
+        return this.frames[this.front];
+    }
+
+    private Frame frame(int index) {
+        if (this.frames[index] == null) {
+            this.frames[index] = new Frame();
+        }
+        return this.frames[index];
+    }
+
+    public void clear() {
+        for (Frame frame : this.frames) {
+            if (frame != null) {
+                frame.clear();
+            }
+        }
+    }
+}
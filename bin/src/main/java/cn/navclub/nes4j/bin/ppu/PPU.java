@@ -1,6 +1,5 @@
 package cn.navclub.nes4j.bin.ppu;
 
-
 import cn.navclub.nes4j.bin.config.NMapper;
 import cn.navclub.nes4j.bin.core.Component;
 import cn.navclub.nes4j.bin.NesConsole;
@@ -8,19 +7,17 @@ import cn.navclub.nes4j.bin.logging.LoggerDelegate;
 import cn.navclub.nes4j.bin.logging.LoggerFactory;
 import cn.navclub.nes4j.bin.ppu.register.PPUControl;
 import cn.navclub.nes4j.bin.ppu.register.PPUMask;
-import cn.navclub.nes4j.bin.config.CPUInterrupt;
 import cn.navclub.nes4j.bin.config.NameMirror;
 import cn.navclub.nes4j.bin.config.PStatus;
 import cn.navclub.nes4j.bin.ppu.register.PPUStatus;
 import lombok.Getter;
 import lombok.Setter;
 
-
+import java.nio.ByteBuffer;
 import java.util.concurrent.locks.LockSupport;
 
 import static cn.navclub.nes4j.bin.util.BinUtil.*;
 
-
 /**
  * <h1>PPU memory map</h1>
  * <p>
@@ -112,7 +109,11 @@ public class PPU implements Component {
     @Getter
     protected final PPUMask mask;
     protected final PPUStatus status;
+    @Getter
     private final Render render;
+    //Pre-decoded pattern table tile
+    @Getter
+    protected final TileCache tiles;
     @Getter
     protected final PPUControl ctr;
     protected final byte[] oam;
@@ -163,6 +164,9 @@ public class PPU implements Component {
     //Suppress val or nmi flag
     private boolean suppress;
     private long lastFrameTime;
+    //Master clock cycle which current ppu has reached
+    @Setter
+    private long clock;
 
     public PPU(final NesConsole console, NameMirror mirrors) {
         this.console = console;
@@ -174,6 +178,7 @@ public class PPU implements Component {
         this.ctr = new PPUControl();
         this.status = new PPUStatus();
         this.palette = new byte[32];
+        this.tiles = new TileCache(console.getMapper().getChrom());
         this.render = new Render(this);
 
         this.reset();
@@ -207,6 +212,46 @@ public class PPU implements Component {
         }
     }
 
+    /**
+     * Catch up to target master clock cycle
+     *
+     * @param clock Target master clock cycle
+     */
+    public void sync(long clock) {
+        if (this.clock >= clock) {
+            return;
+        }
+        if (this.lastFrameTime == 0) {
+            this.lastFrameTime = System.nanoTime();
+        }
+        this.render.run((clock - this.clock) * 3);
+        this.clock = clock;
+    }
+
+    /**
+     * Ppu position at master clock cycle without catch up(emulation timing is not touched).
+     *
+     * @param clock Master clock cycle not less than ppu reached clock
+     * @return {@code scanline << 16 | dot}
+     */
+    public int position(long clock) {
+        return this.render.position(Math.max(0, clock - this.clock) * 3);
+    }
+
+    /**
+     * Predict how many cpu cycles later vblank NMI(scanline 241 dot 1) will occur,the odd frame skipped dot is
+     * considered so the prediction never late.
+     *
+     * @return cpu cycles
+     */
+    public long nextEvent() {
+        var dots = (241 * 341 + 1) - (this.render.scanline * 341 + this.render.cycles);
+        if (dots < 0) {
+            dots += 262 * 341;
+        }
+        return Math.max(1, (dots + 2) / 3);
+    }
+
     private void updateVideoAddr(byte b) {
         //Note that while the v register has 15 bits, the PPU memory space is only 14 bits wide. The highest bit is unused for access through $2007.
         if (this.w == 0) {
@@ -541,7 +586,7 @@ public class PPU implements Component {
         if (!this.suppress) {
             this.status.set(PStatus.V_BLANK_OCCUR);
             if (this.ctr.generateVBlankNMI()) {
-                this.console.hardwareInterrupt(CPUInterrupt.NMI);
+                this.console.triggerNMI();
             }
         }
         this.suppress = false;
@@ -553,6 +598,10 @@ public class PPU implements Component {
      * @param now Video frame output finish timestamp
      */
     protected void calVideoPauseTime(long now) {
+        //Headless console and speculative run-ahead frame run as fast as possible
+        if (this.console.isHeadless() || this.console.isSpeculating()) {
+            return;
+        }
         var unit = 1000000000 / this.console.TVFps();
         var span = unit - (now - this.lastFrameTime);
         if (span > 0) {
@@ -568,8 +617,59 @@ public class PPU implements Component {
         return this.render.cycles;
     }
 
+    /**
+     * Get how many frames was produced since reset
+     *
+     * @return Frame count
+     */
+    public long getFrames() {
+        return this.render.frames;
+    }
+
     protected void setBusAddr(int addr) {
         this.busAddr = addr;
         this.console.getMapper().PPUVideoAddrState(addr);
     }
+
+    @Override
+    public void save(ByteBuffer buffer) {
+        buffer.put(this.vram);
+        buffer.put(this.oam);
+        buffer.put(this.palette);
+        buffer.put(this.ctr.getBits());
+        buffer.put(this.mask.getBits());
+        buffer.put(this.status.getBits());
+        buffer.putInt(this.oamAddr);
+        buffer.put(this.byteBuf);
+        buffer.put((byte) this.mirrors.ordinal());
+        buffer.putInt(this.v);
+        buffer.putInt(this.t);
+        buffer.put(this.w);
+        buffer.put(this.x);
+        buffer.putInt(this.busAddr);
+        putBool(buffer, this.suppress);
+        buffer.putLong(this.clock);
+        this.render.save(buffer);
+    }
+
+    @Override
+    public void load(ByteBuffer buffer) {
+        buffer.get(this.vram);
+        buffer.get(this.oam);
+        buffer.get(this.palette);
+        this.ctr.setBits(buffer.get());
+        this.mask.setBits(buffer.get());
+        this.status.setBits(buffer.get());
+        this.oamAddr = buffer.getInt();
+        this.byteBuf = buffer.get();
+        this.mirrors = NameMirror.values()[buffer.get()];
+        this.v = buffer.getInt();
+        this.t = buffer.getInt();
+        this.w = buffer.get();
+        this.x = buffer.get();
+        this.busAddr = buffer.getInt();
+        this.suppress = getBool(buffer);
+        this.clock = buffer.getLong();
+        this.render.load(buffer);
+    }
 }
@@ -2,12 +2,18 @@ package cn.navclub.nes4j.bin.ppu;
 
 import cn.navclub.nes4j.bin.config.NMapper;
 import cn.navclub.nes4j.bin.config.PStatus;
+import cn.navclub.nes4j.bin.config.RenderMode;
 import cn.navclub.nes4j.bin.function.CycleDriver;
 import cn.navclub.nes4j.bin.ppu.register.PPUMask;
 import lombok.Getter;
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 
+import static cn.navclub.nes4j.bin.util.BinUtil.getBool;
+import static cn.navclub.nes4j.bin.util.BinUtil.getInts;
+import static cn.navclub.nes4j.bin.util.BinUtil.putBool;
+import static cn.navclub.nes4j.bin.util.BinUtil.putInts;
 import static cn.navclub.nes4j.bin.util.BinUtil.uint16;
 import static cn.navclub.nes4j.bin.util.BinUtil.uint8;
 
@@ -39,39 +45,25 @@ import static cn.navclub.nes4j.bin.util.BinUtil.uint8;
  * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
  */
 public class Render implements CycleDriver {
-    private static final int[][] DEF_SYS_PALETTE;
-
-    static {
-        DEF_SYS_PALETTE = new int[][]{
-                {0x80, 0x80, 0x80}, {0x00, 0x3D, 0xA6}, {0x00, 0x12, 0xB0}, {0x44, 0x00, 0x96}, {0xA1, 0x00, 0x5E},
-                {0xC7, 0x00, 0x28}, {0xBA, 0x06, 0x00}, {0x8C, 0x17, 0x00}, {0x5C, 0x2F, 0x00}, {0x10, 0x45, 0x00},
-                {0x05, 0x4A, 0x00}, {0x00, 0x47, 0x2E}, {0x00, 0x41, 0x66}, {0x00, 0x00, 0x00}, {0x05, 0x05, 0x05},
-                {0x05, 0x05, 0x05}, {0xC7, 0xC7, 0xC7}, {0x00, 0x77, 0xFF}, {0x21, 0x55, 0xFF}, {0x82, 0x37, 0xFA},
-                {0xEB, 0x2F, 0xB5}, {0xFF, 0x29, 0x50}, {0xFF, 0x22, 0x00}, {0xD6, 0x32, 0x00}, {0xC4, 0x62, 0x00},
-                {0x35, 0x80, 0x00}, {0x05, 0x8F, 0x00}, {0x00, 0x8A, 0x55}, {0x00, 0x99, 0xCC}, {0x21, 0x21, 0x21},
-                {0x09, 0x09, 0x09}, {0x09, 0x09, 0x09}, {0xFF, 0xFF, 0xFF}, {0x0F, 0xD7, 0xFF}, {0x69, 0xA2, 0xFF},
-                {0xD4, 0x80, 0xFF}, {0xFF, 0x45, 0xF3}, {0xFF, 0x61, 0x8B}, {0xFF, 0x88, 0x33}, {0xFF, 0x9C, 0x12},
-                {0xFA, 0xBC, 0x20}, {0x9F, 0xE3, 0x0E}, {0x2B, 0xF0, 0x35}, {0x0C, 0xF0, 0xA4}, {0x05, 0xFB, 0xFF},
-                {0x5E, 0x5E, 0x5E}, {0x0D, 0x0D, 0x0D}, {0x0D, 0x0D, 0x0D}, {0xFF, 0xFF, 0xFF}, {0xA6, 0xFC, 0xFF},
-                {0xB3, 0xEC, 0xFF}, {0xDA, 0xAB, 0xEB}, {0xFF, 0xA8, 0xF9}, {0xFF, 0xAB, 0xB3}, {0xFF, 0xD2, 0xB0},
-                {0xFF, 0xEF, 0xA6}, {0xFF, 0xF7, 0x9C}, {0xD7, 0xE8, 0x95}, {0xA6, 0xED, 0xAF}, {0xA2, 0xF2, 0xDA},
-                {0x99, 0xFF, 0xFC}, {0xDD, 0xDD, 0xDD}, {0x11, 0x11, 0x11}, {0x11, 0x11, 0x11}
-        };
-    }
+    //Status flags cleared at pre-render line(shared array,avoid varargs allocation per frame)
+    private static final PStatus[] PRE_RENDER_CLEAR = {PStatus.V_BLANK_OCCUR, PStatus.SPRITE_ZERO_HIT, PStatus.SPRITE_OVERFLOW};
 
-    @Getter
-    private final int[][] sysPalette;
     private final PPU ppu;
-    private final Frame frame;
+    //Frame which being drawn,fetched on first draw(forked console may never draw)
+    private Frame frame;
+    private final FrameExchange exchange;
     private final PPUMask mask;
+    //Mapper CHR window offset(1 KB per window)
+    private final int[] CHRWindow;
+    private final TileCache tiles;
     // Name table byte
     private int tileIdx;
     // Attribute table byte
     private int tileAttr;
-    //Pattern table tile low
-    private int leftByte;
-    //Pattern table tile high (+8 bytes from pattern table tile low)
-    private int rightByte;
+    //Pattern table tile low address
+    private int patternAddr;
+    //Pattern table tile row index in tile cache
+    private int tileRow;
 
     protected int cycles;
     //Record current scan line index
@@ -80,12 +72,9 @@ public class Render implements CycleDriver {
     //
     // Current scan line sprite pixel.
     //
-    // piiiiii bbbbbbbb gggggggg rrrrrrrr
-    // ||||||| |||||||| |||||||| ||||||||
+    // piiiiii ........ ........ ..cccccc
     // ||||||| |||||||| |||||||| ||||||||
-    // ||||||| |||||||| |||||||| ++++++++---------- red
-    // ||||||| |||||||| ++++++++------------------- green
-    // ||||||| ++++++++---------------------------- Blur
+    // ||||||| |||||||| |||||||| ||++++++---------- System palette index
     // |++++++---------------------------------------------- Sprite index
     // +---------------------------------------------------- Priority (0: in front of background; 1: behind background)
     //
@@ -94,43 +83,193 @@ public class Render implements CycleDriver {
     private final byte[] spritePalette;
     // Background pixel
     private final int[] background;
-    //background palette
-    private final byte[] backgroundPalette;
+    //background tile color
+    private final int[] tileColor;
     //Background pixel shift
     private int shift;
     //Record product frame counter
     protected long frames;
     //Whether odd frame
     private boolean odd;
+    //Whether draw whole scanline at once
+    private final boolean scanlineMode;
 
     public Render(PPU ppu) {
         this.ppu = ppu;
         this.mask = ppu.mask;
-        this.frame = new Frame();
+        this.exchange = ppu.console.getExchange();
+
+        this.tiles = ppu.tiles;
+        this.CHRWindow = ppu.console.getMapper().getCHRWindow();
+        this.scanlineMode = ppu.console.getRenderMode() == RenderMode.SCANLINE;
 
         this.background = new int[16];
         this.foreground = new int[256];
 
         this.spritePalette = new byte[3];
-        this.backgroundPalette = new byte[3];
-
-        this.sysPalette = new int[DEF_SYS_PALETTE.length][];
+        this.tileColor = new int[4];
 
-        for (int i = 0; i < DEF_SYS_PALETTE.length; i++) {
-            var src = DEF_SYS_PALETTE[i];
-            var dst = new int[src.length];
-            System.arraycopy(src, 0, dst, 0, dst.length);
-            this.sysPalette[i] = dst;
-        }
     }
 
     public void reset() {
         this.cycles = 0;
         this.frames = 0L;
-        this.frame.clear();
+        this.exchange.clear();
         this.scanline = 240;
     }
 
+    public void save(ByteBuffer buffer) {
+        buffer.putInt(this.tileIdx);
+        buffer.putInt(this.tileAttr);
+        buffer.putInt(this.patternAddr);
+        buffer.putInt(this.tileRow);
+        buffer.putInt(this.cycles);
+        buffer.putInt(this.scanline);
+        putInts(buffer, this.foreground);
+        buffer.put(this.spritePalette);
+        putInts(buffer, this.background);
+        putInts(buffer, this.tileColor);
+        buffer.putInt(this.shift);
+        buffer.putLong(this.frames);
+        putBool(buffer, this.odd);
+    }
+
+    public void load(ByteBuffer buffer) {
+        this.tileIdx = buffer.getInt();
+        this.tileAttr = buffer.getInt();
+        this.patternAddr = buffer.getInt();
+        this.tileRow = buffer.getInt();
+        this.cycles = buffer.getInt();
+        this.scanline = buffer.getInt();
+        getInts(buffer, this.foreground);
+        buffer.get(this.spritePalette);
+        getInts(buffer, this.background);
+        getInts(buffer, this.tileColor);
+        this.shift = buffer.getInt();
+        this.frames = buffer.getLong();
+        this.odd = getBool(buffer);
+    }
+
+    /**
+     * Run target ppu dots.
+     * <p>
+     * In {@link RenderMode#SCANLINE} mode a scanline which completely fall in {@code dots} was drawn at once,
+     * because cpu catch up ppu before touch any ppu register(or mapper register) it means no register was
+     * written during that scanline. Scanline which register was written middle fall back to dot render.
+     * </p>
+     *
+     * @param dots Ppu dots
+     */
+    public void run(long dots) {
+        while (dots > 0) {
+            if (this.scanlineMode && this.cycles == 0 && dots >= 341 && this.scanline != 241) {
+                dots -= this.scanline();
+                continue;
+            }
+            this.tick();
+            dots--;
+        }
+    }
+
+    /**
+     * Predict position after {@code dots} dots without run them(odd frame skipped dot is considered).
+     *
+     * @param dots Ppu dots
+     * @return {@code scanline << 16 | dot}
+     */
+    protected int position(long dots) {
+        //Vblank dot(241,1) where odd frame flag flip
+        var vblank = 241 * 341 + 1;
+        var start = this.scanline * 341L + this.cycles;
+        var pos = start + dots;
+        var odd = this.odd;
+        var enable = this.mask.enableRender();
+        while (true) {
+            if (start <= vblank && pos > vblank) {
+                odd = !odd;
+            }
+            //Rendering odd frame jump from (261,339) to (0,0)
+            var length = odd && enable ? 262 * 341 - 1 : 262 * 341;
+            if (pos < length) {
+                break;
+            }
+            pos -= length;
+            start = 0;
+        }
+        return (int) (pos / 341) << 16 | (int) (pos % 341);
+    }
+
+    /**
+     * Run a whole scanline(start from dot 0) at once,result is same as {@link #tick()} run a scanline.
+     *
+     * @return Consumed dots
+     */
+    private int scanline() {
+        var dots = 341;
+        var enableRender = this.mask.enableRender();
+        if (this.scanline < 240) {
+            if (enableRender) {
+                this.visibleLine();
+            }
+        } else if (this.scanline == 261) {
+            this.ppu.status.clear(PRE_RENDER_CLEAR);
+            if (enableRender) {
+                this.preRenderLine();
+                if (this.odd) {
+                    dots = 340;
+                }
+            }
+        }
+        this.scanline = (this.scanline + 1) % 262;
+        return dots;
+    }
+
+    private void visibleLine() {
+        //Dots 1-256 render pixel and fetch next tiles
+        for (int i = 0; i < 32; i++) {
+            var x = i << 3;
+            for (int j = 0; j < 8; j++) {
+                this.renderPixel(x + j);
+            }
+            this.fetchTile();
+        }
+        this.incY();
+        //Dot 257
+        this.spriteEval();
+        this.ppu.v = uint16((this.ppu.v & 0xfbe0) | (this.ppu.t & 0x041f));
+        //Dots 321-336
+        this.fetchTile();
+        this.fetchTile();
+    }
+
+    private void preRenderLine() {
+        //Dots 1-256
+        for (int i = 0; i < 32; i++) {
+            this.fetchTile();
+        }
+        this.incY();
+        //Dot 257
+        Arrays.fill(this.foreground, 0, this.foreground.length, -1);
+        this.ppu.v = uint16((this.ppu.v & 0xfbe0) | (this.ppu.t & 0x041f));
+        //Dots 280-304
+        this.ppu.v = uint16((this.ppu.v & 0x841f) | (this.ppu.t & 0x7be0));
+        //Dots 321-336
+        this.fetchTile();
+        this.fetchTile();
+    }
+
+    /**
+     * Eight dots tile fetch(nametable byte,attribute byte,pattern low and high) and load into shift register.
+     */
+    private void fetchTile() {
+        var v = this.ppu.v;
+        this.readTileIdx(v);
+        this.readTileAttr(v);
+        this.readTileByte(v, false);
+        this.readTileByte(v, true);
+        this.tileMut();
+    }
+
     @Override
     public void tick() {
         //If [PPUMASK]] ($2001) with both BG and sprites disabled, rendering will be halted immediately.
@@ -148,7 +287,12 @@ public class Render implements CycleDriver {
             //Move to next scanline must reset shift
             this.shift = 0;
             this.ppu.fireNMI();
-            this.ppu.console.videoOutput(System.nanoTime(), this.mask.enableRender(), this.frame);
+            //Publish complete frame and draw next frame into a free buffer
+            var frame = this.frame();
+            if (this.ppu.console.isFrameVisible()) {
+                this.frame = this.exchange.publish();
+            }
+            this.ppu.console.videoOutput(System.nanoTime(), this.mask.enableRender(), frame);
             //Check and pause some time to keep 60 fps
             this.ppu.calVideoPauseTime(System.nanoTime());
         }
@@ -169,7 +313,7 @@ public class Render implements CycleDriver {
         var th = false;
         if (this.scanline == 261) {
             if (this.cycles == 1) {
-                this.ppu.status.clear(PStatus.V_BLANK_OCCUR, PStatus.SPRITE_ZERO_HIT, PStatus.SPRITE_OVERFLOW);
+                this.ppu.status.clear(PRE_RENDER_CLEAR);
             }
             //
             // This scanline varies in length, depending on whether an even or an odd frame is being rendered. For odd frames,
@@ -282,7 +426,7 @@ public class Render implements CycleDriver {
         var fetchCycle = preFetchCycle || visibleCycle;
 
         if (visibleLine && visibleCycle) {
-            this.renderPixel();
+            this.renderPixel(this.cycles - 1);
         }
 
         if (fetchCycle) {
@@ -361,23 +505,15 @@ public class Render implements CycleDriver {
         //Because first color was transparent so add 1
         var idx = 1 + ((this.tileAttr >> shift) & 0x03) * 4;
 
-        this.backgroundPalette[0] = this.ppu.palette[idx];
-        this.backgroundPalette[1] = this.ppu.palette[idx + 1];
-        this.backgroundPalette[2] = this.ppu.palette[idx + 2];
+        //Negative transparent otherwise opaque
+        this.tileColor[0] = 0x80000000 | (ppu.palette[0] & 0x3f);
+        this.tileColor[1] = this.ppu.palette[idx] & 0x3f;
+        this.tileColor[2] = this.ppu.palette[idx + 1] & 0x3f;
+        this.tileColor[3] = this.ppu.palette[idx + 2] & 0x3f;
 
+        var pixels = this.tiles.getPixels();
         for (int i = 0; i < 8; i++) {
-            var lower = (this.leftByte >> (7 - i)) & 0x01;
-            var upper = (this.rightByte >> (7 - i)) & 0x01;
-            var k = (lower | upper << 1);
-            var color = switch (k) {
-                case 1 -> this.rgbValue(this.backgroundPalette[0]);
-                case 2 -> this.rgbValue(this.backgroundPalette[1]);
-                case 3 -> this.rgbValue(this.backgroundPalette[2]);
-                default -> this.rgbValue(ppu.palette[0]);
-            };
-            //Negative transparent otherwise opaque
-            var value = (k == 0 ? 0x80000000 : 0) | color;
-            this.background[i + 8] = value;
+            this.background[i + 8] = this.tileColor[pixels[this.tileRow + i]];
         }
         this.shift = 0;
         this.incX();
@@ -445,12 +581,22 @@ public class Render implements CycleDriver {
         var table = ppu.ctr.backgroundNameTable();
         var address = table + this.tileIdx * 16 + fineY;
         if (!high) {
-            this.leftByte = this.ppu.fetchScanlineData(address);
+            this.patternAddr = address;
         } else {
-            this.rightByte = this.ppu.fetchScanlineData(address + 8);
+            this.tileRow = this.tiles.row(this.CHROffset(this.patternAddr));
         }
     }
 
+    /**
+     * Translate pattern table address to ch-rom offset by current mapper CHR window
+     *
+     * @param address Pattern table address
+     * @return Ch-rom offset
+     */
+    private int CHROffset(int address) {
+        return this.CHRWindow[address >> 10] + (address & 0x3ff);
+    }
+
     /**
      * The coarse X component of v needs to be incremented when the next tile is reached. Bits 0-4 are incremented,
      * with overflow toggling bit 10. This means that bits 0-4 count from 0 to 31 across a single nametable,
@@ -537,14 +683,13 @@ public class Render implements CycleDriver {
     }
 
     @SuppressWarnings("all")
-    private void renderPixel() {
-        var x = this.cycles - 1;
+    private void renderPixel(int x) {
         var y = this.scanline;
 
         //Sprite color
         var forground = this.foreground[x];
         //Fetch background pixel,default is transparent color
-        var pixel = rgbValue(this.ppu.palette[0]);
+        var pixel = this.ppu.palette[0] & 0x3f;
         var background = this.background[this.ppu.x + this.shift++];
         //Whether show sprite in position(x,y)
         var showSprite = (forground != -1 && this.mask.showSprite() && this.mask.showLeftMostSprite(x));
@@ -557,9 +702,10 @@ public class Render implements CycleDriver {
 
         //Check sprite pixel if cover background pixel
         if (showSprite) {
-            var color = forground & 0xffffff;
+            var color = forground & 0x3f;
             var index = (forground >> 24) & 0x3f;
-            if (showBackground && pixel > 0 && index == 0 && x < 255) {
+            //Sprite zero hit when both sprite and background pixel are opaque
+            if (showBackground && pixel >= 0 && index == 0 && x < 255) {
                 this.ppu.status.set(PStatus.SPRITE_ZERO_HIT);
             }
             //If sprite priority or background is transparent
@@ -568,9 +714,16 @@ public class Render implements CycleDriver {
             }
         }
 
-        pixel |= (0xff << 24);
+        var frame = this.frame();
+        frame.update(x, y, pixel & 0x3f);
+        frame.emphasis(y, this.mask.emphasis());
+    }
 
-        this.frame.update(x, y, pixel);
+    private Frame frame() {
+        if (this.frame == null) {
+            this.frame = this.exchange.back();
+        }
+        return this.frame;
     }
 
     /**
@@ -621,24 +774,22 @@ public class Render implements CycleDriver {
 
                 address = bank + idx * 16 + df;
 
-                var l = uint8(this.ppu.fetchScanlineData(address));
-                var r = uint8(this.ppu.fetchScanlineData(address + 8));
+                var row = this.tiles.row(this.CHROffset(address));
+                //Flipped tile pixel was reversed in tile cache
+                var pixels = hf ? this.tiles.getFlipped() : this.tiles.getPixels();
 
                 //Faster copy palette data
                 System.arraycopy(ppu.palette, 0x11 + (attr & 0x03) * 4, this.spritePalette, 0, 3);
 
                 for (int j = 0; j < 8; j++) {
-                    var lower = (l >> (7 - j)) & 0x01;
-                    var upper = (r >> (7 - j)) & 0x01;
-                    var k = (lower | upper << 1);
-
-                    var index = x + (hf ? (7 - j) : j);
+                    var k = pixels[row + j];
+                    var index = x + j;
 
                     if (k == 0 || index >= this.foreground.length) {
                         continue;
                     }
 
-                    var b = rgbValue(this.spritePalette[k - 1]);
+                    var b = this.spritePalette[k - 1] & 0x3f;
 
                     //Sprite index
                     b |= ((i & 0x3f) << 24);
@@ -657,9 +808,4 @@ public class Render implements CycleDriver {
             this.ppu.status.set(PStatus.SPRITE_OVERFLOW);
         }
     }
-
-    private int rgbValue(byte idx) {
-        var arr = sysPalette[idx & 0x3f];
-        return arr[0] << 16 | arr[1] << 8 | arr[2];
-    }
 }
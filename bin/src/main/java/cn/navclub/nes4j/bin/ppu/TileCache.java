@@ -0,0 +1,152 @@
+package cn.navclub.nes4j.bin.ppu;
+
+import java.util.Arrays;
+
+/**
+ * Pre-decoded pattern table tile cache.
+ * <p>
+ * Each 16 bytes tile of ch-rom was decoded into 8*8 pixels(one byte per pixel with 2 bit color index) and a
+ * horizontally flipped copy. Tile was keyed by physical ch-rom offset so bank switch only change offset which
+ * {@link Render} lookup, a write to ch-rom mark the tile dirty and it will be decoded again on next lookup.
+ * </p>
+ *
+ * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
+ */
+public class TileCache {
+    private final int tiles;
+    private byte[] chrom;
+    //Whether tile need decode again
+    private boolean[] dirty;
+    //Decoded tile pixel(lazy allocated)
+    private byte[] pixels;
+    //Horizontally flipped decoded tile pixel(lazy allocated)
+    private byte[] flipped;
+    //Whether decoded data was shared with other cache,shared data is immutable and copied before change
+    private boolean shared;
+
+    public TileCache(byte[] chrom) {
+        this.tiles = chrom.length / 16;
+        this.chrom = chrom;
+        this.dirty = new boolean[this.tiles];
+
+        Arrays.fill(this.dirty, true);
+    }
+
+    /**
+     * Point to a ch-rom array which has same content as current one(ch-rom was copied on write)
+     *
+     * @param chrom New ch-rom array
+     */
+    public void rebind(byte[] chrom) {
+        this.chrom = chrom;
+    }
+
+    /**
+     * Mark the tile which contain target ch-rom offset dirty
+     *
+     * @param offset Ch-rom offset
+     */
+    public void invalidate(int offset) {
+        var tile = offset >> 4;
+        if (this.dirty[tile]) {
+            return;
+        }
+        this.own();
+        this.dirty[tile] = true;
+    }
+
+    /**
+     * Lookup tile row which contain target ch-rom offset
+     *
+     * @param offset Ch-rom offset of tile row(low plane)
+     * @return Index of tile row first pixel in {@link #getPixels()} and {@link #getFlipped()}
+     */
+    public int row(int offset) {
+        var tile = offset >> 4;
+        if (this.dirty[tile]) {
+            this.own();
+            this.decode(tile);
+        }
+        return (tile << 6) | ((offset & 0x07) << 3);
+    }
+
+    private void decode(int tile) {
+        var offset = tile << 4;
+        for (int i = 0; i < 8; i++) {
+            var l = this.chrom[offset + i];
+            var r = this.chrom[offset + i + 8];
+            var index = (tile << 6) | (i << 3);
+            for (int j = 0; j < 8; j++) {
+                var k = (byte) (((l >> (7 - j)) & 0x01) | (((r >> (7 - j)) & 0x01) << 1));
+                this.pixels[index + j] = k;
+                this.flipped[index + 7 - j] = k;
+            }
+        }
+        this.dirty[tile] = false;
+    }
+
+    /**
+     * Allocate decode buffer or copy shared decode buffer before change it
+     */
+    private void own() {
+        if (this.pixels == null) {
+            this.pixels = new byte[this.tiles * 64];
+            this.flipped = new byte[this.tiles * 64];
+        } else if (this.shared) {
+            this.dirty = this.dirty.clone();
+            this.pixels = this.pixels.clone();
+            this.flipped = this.flipped.clone();
+        }
+        this.shared = false;
+    }
+
+    public byte[] getPixels() {
+        if (this.pixels == null) {
+            this.own();
+        }
+        return this.pixels;
+    }
+
+    public byte[] getFlipped() {
+        if (this.flipped == null) {
+            this.own();
+        }
+        return this.flipped;
+    }
+
+    /**
+     * Decode all tiles and share decoded data with target cache(target ch-rom must has same content)
+     *
+     * @param target Tile cache of forked console
+     */
+    public void share(TileCache target) {
+        if (this.tiles != target.tiles) {
+            throw new IllegalArgumentException("Tile cache size mismatch.");
+        }
+        for (int i = 0; i < this.tiles; i++) {
+            if (this.dirty[i]) {
+                this.own();
+                this.decode(i);
+            }
+        }
+        this.shared = true;
+        target.dirty = this.dirty;
+        target.pixels = this.getPixels();
+        target.flipped = this.getFlipped();
+        target.shared = true;
+    }
+
+    /**
+     * Mark all tiles dirty(whole ch-rom was replaced)
+     */
+    public void invalidateAll() {
+        if (this.shared) {
+            //Data will be decoded again,not need copy
+            this.dirty = new boolean[this.tiles];
+            this.pixels = null;
+            this.flipped = null;
+            this.shared = false;
+        }
+        Arrays.fill(this.dirty, true);
+    }
+}
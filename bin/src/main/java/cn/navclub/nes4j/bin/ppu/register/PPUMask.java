@@ -46,6 +46,13 @@ public class PPUMask extends Register<PMask> {
         return x > 8 || this.contain(PMask.LEFTMOST_8PXL_SPRITE);
     }
 
+    /**
+     * Emphasis bits(bit0: red,bit1: green,bit2: blue)
+     */
+    public int emphasis() {
+        return (this.bits >> 5) & 0x07;
+    }
+
     public boolean enableRender() {
         return this.showSprite() || this.showBackground();
     }
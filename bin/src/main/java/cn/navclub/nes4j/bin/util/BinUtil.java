@@ -4,6 +4,7 @@ import cn.navclub.nes4j.bin.logging.LoggerDelegate;
 import cn.navclub.nes4j.bin.logging.LoggerFactory;
 
 import java.io.*;
+import java.nio.ByteBuffer;
 
 /**
  * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
@@ -123,4 +124,24 @@ public class BinUtil {
         }
         return (char) b;
     }
+
+    public static void putBool(ByteBuffer buffer, boolean value) {
+        buffer.put((byte) (value ? 1 : 0));
+    }
+
+    public static boolean getBool(ByteBuffer buffer) {
+        return buffer.get() != 0;
+    }
+
+    public static void putInts(ByteBuffer buffer, int[] src) {
+        for (int value : src) {
+            buffer.putInt(value);
+        }
+    }
+
+    public static void getInts(ByteBuffer buffer, int[] dst) {
+        for (int i = 0; i < dst.length; i++) {
+            dst[i] = buffer.getInt();
+        }
+    }
 }
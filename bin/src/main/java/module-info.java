@@ -1,3 +1,4 @@
+import cn.navclub.nes4j.bin.apu.NullPlayer;
 import cn.navclub.nes4j.bin.apu.Player;
 
 module cn.navclub.nes4j.bin {
@@ -18,4 +19,6 @@ module cn.navclub.nes4j.bin {
     exports cn.navclub.nes4j.bin.eventbus;
 
     uses Player;
+
+    provides Player with NullPlayer;
 }
\ No newline at end of file
@@ -0,0 +1,47 @@
+package cn.navclub.nes4j.bin;
+
+import cn.navclub.nes4j.bin.apu.Player;
+import cn.navclub.nes4j.bin.apu.SampleBlock;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Steady state emulation(cpu,ppu,apu synthesis,video/audio output) must not allocate on game loop thread.
+ *
+ * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
+ */
+class AllocationTest {
+    public static class Sink implements Player {
+        private long sum;
+
+        @Override
+        public void output(SampleBlock block) {
+            var samples = block.getShorts();
+            for (int i = 0; i < block.getFrames(); i++) {
+                this.sum += samples[i];
+            }
+        }
+    }
+
+    @Test
+    void runFrames() {
+        var mx = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        var console = NesConsole.Builder
+                .newBuilder()
+                .buffer(TestRom.frame())
+                .headless(true)
+                .player(Sink.class)
+                .gameLoopCallback((fps, enable, frame, joyPad, joyPad1) -> {
+                })
+                .build();
+        //Warm up(class loading,lazy buffers and jit)
+        console.runFrames(600);
+        var id = Thread.currentThread().getId();
+        var before = mx.getThreadAllocatedBytes(id);
+        console.runFrames(600);
+        assertEquals(0, mx.getThreadAllocatedBytes(id) - before, "Allocated bytes in 600 frames");
+    }
+}
@@ -0,0 +1,143 @@
+package cn.navclub.nes4j.bin;
+
+import cn.navclub.nes4j.bin.io.Movie;
+import cn.navclub.nes4j.bin.ppu.Frame;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+import org.junit.jupiter.api.TestReporter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Headless golden output regression test.
+ * <p>
+ * Synthetic {@link TestRom#frame()} was always run against checked-in {@code golden/frame.golden}, every
+ * {@code *.nes} rom under an optional directory was run {@code frames} frames too, input was replayed from
+ * {@code <rom>.nesm} movie(see {@link Movie}) when it exists. All roms run on a {@link ConsolePool}(all cpu cores),
+ * every {@code interval} frames {@link Frame#checksum()} and cpu ram checksum were taken and compared with
+ * {@code <rom>.golden}. Golden file was only written in update mode, missing golden fail the test. Each rom is
+ * a dynamic test and its fps was reported on every run.
+ * </p>
+ * <pre>
+ *     golden: [frame] [video crc32] [ram crc32]
+ *     usage : mvn test -pl bin -Dtest=GoldenTest [-Dnes4j.golden.dir=<rom dir>]
+ *             [-Dnes4j.golden.frames=600] [-Dnes4j.golden.interval=60] [-Dnes4j.golden.update=true]
+ * </pre>
+ *
+ * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
+ */
+class GoldenTest {
+    private static final String DIR = "nes4j.golden.dir";
+    private static final String UPDATE = "nes4j.golden.update";
+    //Synthetic rom golden(relative to module dir) use fixed frames and interval
+    private static final Path SYNTHETIC = Path.of("src", "test", "resources", "golden", "frame.golden");
+    private static final int SYNTHETIC_FRAMES = 600;
+    private static final int SYNTHETIC_INTERVAL = 60;
+
+    private final int frames = Integer.getInteger("nes4j.golden.frames", 600);
+    private final int interval = Integer.getInteger("nes4j.golden.interval", 60);
+    private final boolean update = Boolean.getBoolean(UPDATE);
+
+    @TestFactory
+    Stream<DynamicTest> golden(TestReporter reporter) throws IOException, InterruptedException {
+        var results = new ArrayList<Result>();
+        var pool = new ConsolePool(Runtime.getRuntime().availableProcessors(), this.interval);
+        var synthetic = new Result("frame(synthetic)", SYNTHETIC, SYNTHETIC_INTERVAL);
+        synthetic.submit(pool, NesConsole.Builder.newBuilder().buffer(TestRom.frame()), SYNTHETIC_FRAMES);
+        results.add(synthetic);
+        var dir = System.getProperty(DIR);
+        if (dir != null) {
+            final List<Path> roms;
+            try (Stream<Path> stream = Files.list(Path.of(dir))) {
+                roms = stream.filter(it -> it.toString().endsWith(".nes")).sorted().toList();
+            }
+            for (Path rom : roms) {
+                var builder = NesConsole.Builder.newBuilder().file(rom.toFile());
+                var movie = sibling(rom, ".nesm");
+                if (Files.exists(movie)) {
+                    builder.movie(Movie.read(movie));
+                }
+                var result = new Result(rom.getFileName().toString(), sibling(rom, ".golden"), this.interval);
+                result.submit(pool, builder, this.frames);
+                results.add(result);
+            }
+        }
+        for (Result result : results) {
+            result.instance.future().join();
+        }
+        pool.shutdown();
+        pool.awaitTermination(1, TimeUnit.MINUTES);
+        return results.stream().map(it -> DynamicTest.dynamicTest(it.name, () -> it.complete(reporter)));
+    }
+
+    private static Path sibling(Path rom, String suffix) {
+        var name = rom.getFileName().toString();
+        return rom.resolveSibling(name.substring(0, name.length() - 4) + suffix);
+    }
+
+    /**
+     * Rom run result
+     */
+    private class Result {
+        private final String name;
+        private final Path golden;
+        private final int interval;
+        private final List<String> lines;
+        private NesConsole console;
+        private ConsolePool.Instance instance;
+
+        private Result(String name, Path golden, int interval) {
+            this.name = name;
+            this.golden = golden;
+            this.interval = interval;
+            this.lines = new ArrayList<>();
+        }
+
+        private void submit(ConsolePool pool, NesConsole.Builder builder, int frames) {
+            this.console = builder
+                    .headless(true)
+                    .gameLoopCallback((fps, enable, frame, joyPad, joyPad1) -> this.capture(frame))
+                    .build();
+            this.instance = pool.submit(this.console, frames);
+        }
+
+        //Called on pool thread when a frame was output
+        private void capture(Frame frame) {
+            var index = this.console.getPpu().getFrames();
+            if (index % this.interval == 0) {
+                this.lines.add(String.format("%d %08x %08x", index, frame.checksum(), this.console.getBus().checksum()));
+            }
+        }
+
+        private void complete(TestReporter reporter) throws IOException {
+            var speed = String.format("%.1f fps", this.instance.speed());
+            //Reporter entry was not kept by surefire,print to stdout too
+            reporter.publishEntry(this.name, speed);
+            System.out.println("Golden rom " + this.name + " run at " + speed);
+            if (update) {
+                Files.createDirectories(this.golden.toAbsolutePath().getParent());
+                Files.write(this.golden, this.lines);
+                System.out.println("Golden file " + this.golden + " was updated");
+                return;
+            }
+            if (!Files.exists(this.golden)) {
+                fail("Golden file " + this.golden + " not found,run with -D" + UPDATE + "=true to create it.");
+            }
+            var expect = Files.readAllLines(this.golden);
+            for (int i = 0; i < Math.max(expect.size(), this.lines.size()); i++) {
+                var line = i < expect.size() ? expect.get(i) : null;
+                var actual = i < this.lines.size() ? this.lines.get(i) : null;
+                assertEquals(line, actual, "First mismatch at frame " + (long) (i + 1) * this.interval + "(" + speed + ")");
+            }
+        }
+    }
+}
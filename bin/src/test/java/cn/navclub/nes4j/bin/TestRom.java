@@ -0,0 +1,211 @@
+package cn.navclub.nes4j.bin;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Synthetic NROM test rom for unit test and benchmark(no rom file need to be bundled), bench module use it
+ * through nes4j-bin test-jar.
+ *
+ * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
+ */
+public class TestRom {
+    private static final int ORIGIN = 0x8000;
+    //Vector table offset in 16 KB prg-rom
+    private static final int VECTOR = 0x3ffa;
+
+    private final byte[] prg;
+    private final Map<String, Integer> labels;
+    //Unresolved label reference(prg offset -> label),high bit of offset mean relative branch
+    private final Map<Integer, String> fixups;
+    private int pc;
+
+    private TestRom() {
+        this.prg = new byte[0x4000];
+        this.labels = new HashMap<>();
+        this.fixups = new HashMap<>();
+    }
+
+    private TestRom op(int... bytes) {
+        for (int b : bytes) {
+            this.prg[this.pc++] = (byte) b;
+        }
+        return this;
+    }
+
+    private TestRom label(String name) {
+        this.labels.put(name, ORIGIN + this.pc);
+        return this;
+    }
+
+    //Absolute address operand instruction
+    private TestRom abs(int opcode, int address) {
+        return this.op(opcode, address & 0xff, address >> 8);
+    }
+
+    private TestRom abs(int opcode, String label) {
+        this.op(opcode);
+        this.fixups.put(this.pc, label);
+        return this.op(0, 0);
+    }
+
+    //Relative branch instruction
+    private TestRom branch(int opcode, String label) {
+        this.op(opcode);
+        this.fixups.put(this.pc | 0x10000, label);
+        return this.op(0);
+    }
+
+    private byte[] build() {
+        //Reset vector point to $8000,nmi/irq vector point to label nmi or a rti
+        this.label("rti").op(0x40);
+        var nmi = this.labels.getOrDefault("nmi", this.labels.get("rti"));
+        var vectors = new int[]{nmi, ORIGIN, this.labels.get("rti")};
+        for (int i = 0; i < vectors.length; i++) {
+            this.prg[VECTOR + i * 2] = (byte) vectors[i];
+            this.prg[VECTOR + i * 2 + 1] = (byte) (vectors[i] >> 8);
+        }
+        this.fixups.forEach((offset, label) -> {
+            int address = this.labels.get(label);
+            if ((offset & 0x10000) != 0) {
+                offset &= 0xffff;
+                this.prg[offset] = (byte) (address - (ORIGIN + offset + 1));
+            } else {
+                this.prg[offset] = (byte) address;
+                this.prg[offset + 1] = (byte) (address >> 8);
+            }
+        });
+        //iNES header:16 KB prg-rom,8 KB ch-rom,mapper 0,vertical mirroring
+        var rom = new byte[16 + 0x4000 + 0x2000];
+        System.arraycopy(new byte[]{'N', 'E', 'S', 0x1a, 1, 1, 1}, 0, rom, 0, 7);
+        System.arraycopy(this.prg, 0, rom, 16, this.prg.length);
+        for (int i = 0; i < 0x2000; i++) {
+            rom[16 + 0x4000 + i] = (byte) ((i * 7) ^ (i >> 3));
+        }
+        return rom;
+    }
+
+    private TestRom init() {
+        //SEI CLD LDX #$FF TXS
+        return this.op(0x78, 0xd8, 0xa2, 0xff, 0x9a);
+    }
+
+    /**
+     * Arithmetic and logic instruction mix
+     */
+    public static byte[] alu() {
+        var rom = new TestRom().init();
+        rom.label("loop")
+                //LDA #$01 CLC ADC $10 STA $10
+                .op(0xa9, 0x01, 0x18, 0x65, 0x10, 0x85, 0x10)
+                //INX DEY EOR #$55 AND $11 ORA #$0F
+                .op(0xe8, 0x88, 0x49, 0x55, 0x25, 0x11, 0x09, 0x0f)
+                //SEC SBC #$03 ROL $12 TAX LSR A
+                .op(0x38, 0xe9, 0x03, 0x26, 0x12, 0xaa, 0x4a)
+                .abs(0x4c, "loop");
+        return rom.build();
+    }
+
+    /**
+     * Indexed and indirect memory access mix over ram,sram and prg-rom
+     */
+    public static byte[] memory() {
+        var rom = new TestRom().init();
+        //Pointer $20 -> $0300
+        rom.op(0xa9, 0x00, 0x85, 0x20, 0xa9, 0x03, 0x85, 0x21);
+        rom.label("loop")
+                //LDA $0200,X STA $0400,Y
+                .abs(0xbd, 0x0200).abs(0x99, 0x0400)
+                //LDA ($20),Y STA $10 INC $0500,X
+                .op(0xb1, 0x20, 0x85, 0x10).abs(0xfe, 0x0500)
+                //LDA $6000,X STA $6100,Y LDA $8000,Y
+                .abs(0xbd, 0x6000).abs(0x99, 0x6100).abs(0xb9, 0x8000)
+                //INX INY
+                .op(0xe8, 0xc8)
+                .abs(0x4c, "loop");
+        return rom.build();
+    }
+
+    /**
+     * Branch,subroutine call and stack instruction mix
+     */
+    public static byte[] branch() {
+        var rom = new TestRom().init();
+        rom.label("loop")
+                //LDX #$10
+                .op(0xa2, 0x10)
+                //DEX BNE inner
+                .label("inner").op(0xca).branch(0xd0, "inner")
+                //INY CPY #$80 BCC skip LDY #$00
+                .op(0xc8, 0xc0, 0x80).branch(0x90, "skip").op(0xa0, 0x00)
+                //JSR sub PHA PLA
+                .label("skip").abs(0x20, "sub").op(0x48, 0x68)
+                .abs(0x4c, "loop")
+                //RTS
+                .label("sub").op(0x60);
+        return rom.build();
+    }
+
+    /**
+     * Rendering enabled game like workload:background,sprites,apu channels and nmi driven oam dma
+     */
+    public static byte[] frame() {
+        var rom = new TestRom().init();
+        //Disable nmi and rendering,wait ppu warm up
+        rom.op(0xa9, 0x00).abs(0x8d, 0x2000).abs(0x8d, 0x2001);
+        rom.label("vw1").abs(0x2c, 0x2002).branch(0x10, "vw1");
+        rom.label("vw2").abs(0x2c, 0x2002).branch(0x10, "vw2");
+        //Palette
+        rom.op(0xa9, 0x3f).abs(0x8d, 0x2006).op(0xa9, 0x00).abs(0x8d, 0x2006).op(0xa2, 0x00);
+        rom.label("pal").op(0x8a, 0x18, 0x69, 0x05, 0x29, 0x3f).abs(0x8d, 0x2007)
+                .op(0xe8, 0xe0, 0x20).branch(0xd0, "pal");
+        //Name table 0 and 1
+        rom.op(0xa9, 0x20).abs(0x8d, 0x2006).op(0xa9, 0x00).abs(0x8d, 0x2006).op(0xa0, 0x08, 0xa2, 0x00);
+        rom.label("nt").op(0x8a, 0x45, 0x30).abs(0x8d, 0x2007).op(0xe6, 0x30, 0xe6, 0x30, 0xe8)
+                .branch(0xd0, "nt").op(0x88).branch(0xd0, "nt");
+        //Oam buffer at $0200
+        rom.op(0xa2, 0x00);
+        rom.label("oam").op(0x8a, 0x0a, 0x49, 0x5a).abs(0x9d, 0x0200).op(0xe8).branch(0xd0, "oam");
+        //Apu pulse1,triangle and noise
+        var apu = new int[][]{{0x4015, 0x0f}, {0x4000, 0xbf}, {0x4002, 0xfd}, {0x4003, 0x08}, {0x4008, 0x81},
+                {0x400a, 0x42}, {0x400b, 0x08}, {0x400c, 0x3a}, {0x400e, 0x05}, {0x400f, 0x08}};
+        for (int[] it : apu) {
+            rom.op(0xa9, it[1]).abs(0x8d, it[0]);
+        }
+        //Scroll 0,enable nmi and rendering
+        rom.op(0xa9, 0x00).abs(0x8d, 0x2005).abs(0x8d, 0x2005);
+        rom.op(0xa9, 0x80).abs(0x8d, 0x2000).op(0xa9, 0x1e).abs(0x8d, 0x2001);
+        //INC $10 LDA $10 ADC $11 STA $11
+        rom.label("main").op(0xe6, 0x10, 0xa5, 0x10, 0x65, 0x11, 0x85, 0x11).abs(0x4c, "main");
+        //PHA INC $12 oam dma from $0200,reset scroll PLA RTI
+        rom.label("nmi").op(0x48, 0xe6, 0x12, 0xa9, 0x02).abs(0x8d, 0x4014)
+                .op(0xa9, 0x00).abs(0x8d, 0x2005).abs(0x8d, 0x2005).op(0x68, 0x40);
+        return rom.build();
+    }
+
+    /**
+     * Load synthetic rom by name
+     *
+     * @param name Synthetic rom name(alu,memory,branch,frame) or rom file path
+     * @return Rom data
+     */
+    public static byte[] load(String name) throws IOException {
+        return switch (name) {
+            case "alu" -> alu();
+            case "memory" -> memory();
+            case "branch" -> branch();
+            case "frame" -> frame();
+            default -> Files.readAllBytes(Path.of(name));
+        };
+    }
+
+    /**
+     * Dump synthetic rom to file
+     */
+    public static void main(String[] args) throws IOException {
+        Files.write(Path.of(args[1]), load(args[0]));
+    }
+}
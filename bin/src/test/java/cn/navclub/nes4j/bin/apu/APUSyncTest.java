@@ -0,0 +1,93 @@
+package cn.navclub.nes4j.bin.apu;
+
+import cn.navclub.nes4j.bin.NesConsole;
+import cn.navclub.nes4j.bin.TestRom;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * {@link APU#sync(long)} skip idle cycles in bulk,result must be exactly same as tick every cycle.
+ *
+ * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
+ */
+class APUSyncTest {
+    //Pulse1,triangle and noise audible
+    private static final int[][] CHANNELS = {{0x4015, 0x0f}, {0x4000, 0xbf}, {0x4002, 0xfd}, {0x4003, 0x08},
+            {0x4008, 0x81}, {0x400a, 0x42}, {0x400b, 0x08}, {0x400c, 0x3a}, {0x400e, 0x05}, {0x400f, 0x08}};
+    private static final long END = 40000;
+
+    public static class Capture implements Player {
+        private static Capture last;
+        private long hash = 1;
+
+        public Capture() {
+            last = this;
+        }
+
+        @Override
+        public void output(SampleBlock block) {
+            var samples = block.getShorts();
+            for (int i = 0; i < block.getFrames(); i++) {
+                this.hash = this.hash * 31 + samples[i];
+            }
+        }
+    }
+
+    private record Result(byte[] state, long audio) {
+    }
+
+    private static Result run(boolean lazy, long at, int value) {
+        var console = NesConsole.Builder
+                .newBuilder()
+                .buffer(TestRom.frame())
+                .headless(true)
+                .player(Capture.class)
+                .build();
+        var apu = console.getApu();
+        var clock = 0L;
+        for (int i = 0; i < CHANNELS.length; i++) {
+            clock = advance(apu, lazy, clock, 10 + i);
+            apu.write(CHANNELS[i][0], (byte) CHANNELS[i][1]);
+        }
+        clock = advance(apu, lazy, clock, at);
+        apu.write(0x4017, (byte) value);
+        advance(apu, lazy, clock, END);
+        apu.setClock(END);
+        var buffer = ByteBuffer.allocate(1024);
+        apu.save(buffer);
+        return new Result(Arrays.copyOf(buffer.array(), buffer.position()), Capture.last.hash);
+    }
+
+    private static long advance(APU apu, boolean lazy, long clock, long target) {
+        if (lazy) {
+            apu.sync(target);
+            return target;
+        }
+        for (; clock < target; clock++) {
+            apu.tick();
+        }
+        return clock;
+    }
+
+    @Test
+    void frameCounterWriteNearStep() {
+        //Frame counter write land 0-20 cycles before(and after) every sequencer step
+        var steps = new long[]{7456, 14913, 22371, 29829};
+        for (long step : steps) {
+            for (long at = step - 20; at <= step + 4; at++) {
+                for (int value : new int[]{0x00, 0x40, 0x80, 0xc0}) {
+                    var expect = run(false, at, value);
+                    var actual = run(true, at, value);
+                    var message = "$4017=%02X at cycle %d".formatted(value, at);
+                    assertArrayEquals(expect.state(), actual.state(), message);
+                    assertEquals(expect.audio(), actual.audio(), message);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package cn.navclub.nes4j.bin.apu;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
+ */
+class BlipBufferTest {
+    private static final int CLOCK_RATE = 1789773;
+    private static final int SAMPLE_RATE = 44100;
+    //Ntsc cpu cycles per video frame
+    private static final int BLOCK = CLOCK_RATE / 60;
+
+    @Test
+    void sampleCountMatchRate() {
+        var blip = new BlipBuffer(CLOCK_RATE, SAMPLE_RATE, BLOCK + 1);
+        var out = new int[blip.getCapacity()];
+        var clocks = 0L;
+        var samples = 0L;
+        //Uneven block length,fraction must carry over blocks
+        for (int i = 0; i < 3600; i++) {
+            var time = BLOCK - (i % 3);
+            blip.endBlock(time);
+            clocks += time;
+            samples += blip.read(out);
+            var expect = clocks * SAMPLE_RATE / CLOCK_RATE;
+            assertTrue(Math.abs(samples - expect) <= 1, "Block " + i + " samples " + samples + " expect " + expect);
+        }
+    }
+
+    @Test
+    void stepSettleToDeltaLevel() {
+        var blip = new BlipBuffer(CLOCK_RATE, SAMPLE_RATE, BLOCK);
+        var out = new int[blip.getCapacity()];
+        //Step spread over 16 samples start from step sample position
+        var time = 1000;
+        var index = (int) ((long) time * SAMPLE_RATE / CLOCK_RATE);
+        blip.addDelta(time, 1000);
+        blip.endBlock(BLOCK);
+        var count = blip.read(out);
+        for (int i = 0; i < index; i++) {
+            assertEquals(0, out[i], "Sample " + i);
+        }
+        //Integrated step reach exact delta level(each kernel phase sum to one)
+        for (int i = index + 16; i < count; i++) {
+            assertEquals(1000, out[i], "Sample " + i);
+        }
+        //Step near block end,kernel tail spread into next block
+        blip.addDelta(BLOCK - 10, -400);
+        blip.endBlock(BLOCK);
+        count = blip.read(out);
+        assertEquals(1000, out[0]);
+        blip.endBlock(BLOCK);
+        count = blip.read(out);
+        for (int i = 16; i < count; i++) {
+            assertEquals(600, out[i], "Sample " + i);
+        }
+    }
+}